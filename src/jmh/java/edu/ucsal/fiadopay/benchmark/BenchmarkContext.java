@@ -0,0 +1,37 @@
+package edu.ucsal.fiadopay.benchmark;
+
+import edu.ucsal.fiadopay.FiadoPayApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Sobe a aplicação sem servidor web, com H2 em memória isolado por trial
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "spring.main.banner-mode=off",
+                "spring.jpa.show-sql=false",
+                "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                // Benchmarks medem o caminho de criação, não o 429 da admissão
+                "fiadopay.admission.merchant-rate=1000000",
+                "fiadopay.admission.merchant-burst=1000000",
+                "fiadopay.admission.max-in-flight=10000",
+                "logging.level.root=WARN",
+                "logging.level.edu.ucsal.fiadopay=WARN"));
+        args.addAll(List.of(properties));
+        // Como argumentos de linha de comando: properties() do builder são só defaults e o application.yml venceria
+        return new SpringApplicationBuilder(FiadoPayApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.stream().map(a -> "--" + a).toArray(String[]::new));
+    }
+}
@@ -0,0 +1,55 @@
+package edu.ucsal.fiadopay.benchmark;
+
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.service.FraudDetectionService;
+import edu.ucsal.fiadopay.service.FraudEvaluation;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FraudEvaluationBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private FraudDetectionService fraudDetectionService;
+
+    @Param({"150.00", "7500.00"})
+    public String amount;
+
+    private Payment payment;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        fraudDetectionService = context.getBean(FraudDetectionService.class);
+        payment = Payment.builder()
+                .id("pay_bench")
+                .merchantId(1L)
+                .method("CARD")
+                .amount(new BigDecimal(amount))
+                .currency("BRL")
+                .installments(1)
+                .status(Payment.Status.PENDING)
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public FraudEvaluation evaluate() {
+        return fraudDetectionService.evaluate(payment);
+    }
+}
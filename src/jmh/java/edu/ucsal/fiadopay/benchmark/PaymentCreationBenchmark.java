@@ -0,0 +1,55 @@
+package edu.ucsal.fiadopay.benchmark;
+
+import edu.ucsal.fiadopay.controller.PaymentRequest;
+import edu.ucsal.fiadopay.controller.PaymentResponse;
+import edu.ucsal.fiadopay.domain.Merchant;
+import edu.ucsal.fiadopay.repo.MerchantRepository;
+import edu.ucsal.fiadopay.service.PaymentService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * createPayment ponta a ponta contra H2 em memória (auth, validação, fraude, save, sinks).
+ * A regra HighFrequency fica desligada neste contexto: com um único merchant
+ * ela recusaria quase tudo e o benchmark mediria só o caminho de recusa.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentCreationBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private PaymentService paymentService;
+    private String auth;
+
+    private final PaymentRequest card = new PaymentRequest("CARD", "BRL", new BigDecimal("150.00"), 3, null);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Um merchant passa de 10 pagamentos em 5 min logo no aquecimento e tudo viraria recusa
+        context = BenchmarkContext.start("fiadopay.fraud.disabled-rules=HighFrequency");
+        paymentService = context.getBean(PaymentService.class);
+        Merchant merchant = context.getBean(MerchantRepository.class).save(Merchant.builder()
+                .name("bench")
+                .clientId("bench-client")
+                .clientSecret("bench-secret")
+                .build());
+        auth = "Bearer FAKE-" + merchant.getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PaymentResponse createPayment() {
+        return paymentService.createPayment(auth, null, card);
+    }
+}
@@ -0,0 +1,27 @@
+package edu.ucsal.fiadopay.benchmark;
+
+import edu.ucsal.fiadopay.plugin.paymentmethod.CardPaymentHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentHandlerBenchmark {
+
+    @Param({"1", "6", "12"})
+    public int installments;
+
+    private final CardPaymentHandler handler = new CardPaymentHandler();
+    private final BigDecimal amount = new BigDecimal("1000.00");
+
+    @Benchmark
+    public BigDecimal cardCalculateTotal() {
+        return handler.calculateTotal(amount, installments);
+    }
+}
@@ -0,0 +1,45 @@
+package edu.ucsal.fiadopay.benchmark;
+
+import edu.ucsal.fiadopay.controller.WebhookEventData;
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.domain.WebhookEvent;
+import edu.ucsal.fiadopay.processor.WebhookSinkProcessor;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * dispatch com os listeners reais (auditoria + métricas para PAYMENT_APPROVED)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SinkDispatchBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private WebhookSinkProcessor sinkProcessor;
+    private WebhookEventData event;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        sinkProcessor = context.getBean(WebhookSinkProcessor.class);
+        event = new WebhookEventData("evt_bench", WebhookEvent.PAYMENT_APPROVED, "pay_bench",
+                Payment.Status.APPROVED, 1L, "PIX", Instant.now());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void dispatch() {
+        sinkProcessor.dispatch(event);
+    }
+}
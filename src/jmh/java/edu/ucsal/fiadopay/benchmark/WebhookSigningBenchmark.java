@@ -0,0 +1,26 @@
+package edu.ucsal.fiadopay.benchmark;
+
+import edu.ucsal.fiadopay.service.WebhookSigner;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebhookSigningBenchmark {
+
+    private final WebhookSigner signer = new WebhookSigner("ucsal-2025", List.of());
+    private final String payload = "{\"id\":\"evt_1a2b3c4d\",\"type\":\"payment.updated\",\"data\":"
+            + "{\"paymentId\":\"pay_9f8e7d6c\",\"status\":\"APPROVED\",\"occurredAt\":\"2025-11-20T12:00:00Z\"}}";
+
+    @Benchmark
+    @Threads(4)
+    public String sign() {
+        return signer.sign(payload);
+    }
+}
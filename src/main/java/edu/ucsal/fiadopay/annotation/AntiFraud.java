@@ -20,4 +20,6 @@ public @interface AntiFraud {
     String severity() default "MEDIUM";
 
     int order() default 10;
+
+    long timeoutMs() default 200; // orçamento de latência da regra
 }
@@ -0,0 +1,10 @@
+package edu.ucsal.fiadopay.config;
+
+public record ExecutorStats(
+        String name,
+        String mode,            // platform | virtual
+        int maxConcurrency,
+        int active,
+        int queued,
+        long rejected
+) {}
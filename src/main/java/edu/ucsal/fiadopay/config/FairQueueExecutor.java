@@ -0,0 +1,187 @@
+package edu.ucsal.fiadopay.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Fila justa por merchant na frente de um executor compartilhado (deficit round-robin).
+ * Cada merchant tem a própria fila; a cada rodada recebe {@code quantum × peso} créditos
+ * e cada tarefa despachada consome um. No máximo {@code maxConcurrency} tarefas ficam no
+ * executor de baixo, então a fila FIFO dele nunca acumula a rajada de um único merchant.
+ * O lock só protege a escolha da próxima tarefa; a execução acontece fora dele.
+ */
+@Slf4j
+public class FairQueueExecutor {
+
+    private static final Executor RETRY = CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS);
+
+    private final String name;
+    private final Executor delegate;
+    private final int maxConcurrency;
+    private final int quantum;
+    private final ToIntFunction<Long> weightOf;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, MerchantQueue> queues = new HashMap<>();
+    private final ArrayDeque<MerchantQueue> active = new ArrayDeque<>();
+    private int running;
+    private int queued;
+
+    public FairQueueExecutor(String name, Executor delegate, int maxConcurrency, int quantum,
+                             ToIntFunction<Long> weightOf) {
+        this.name = name;
+        this.delegate = delegate;
+        this.maxConcurrency = maxConcurrency;
+        this.quantum = quantum;
+        this.weightOf = weightOf;
+    }
+
+    /**
+     * Enfileira a tarefa na fila do merchant; {@code merchantId} nulo usa uma fila compartilhada
+     */
+    public void execute(Long merchantId, Runnable task) {
+        Long key = merchantId == null ? 0L : merchantId;
+        // Peso lido fora do lock (pode consultar o cache de merchants)
+        int weight = Math.max(1, weightOf.applyAsInt(key));
+        lock.lock();
+        try {
+            MerchantQueue q = queues.computeIfAbsent(key, MerchantQueue::new);
+            q.weight = weight;
+            q.tasks.addLast(task);
+            queued++;
+            if (!q.active) {
+                q.active = true;
+                active.addLast(q);
+            }
+        } finally {
+            lock.unlock();
+        }
+        pump();
+    }
+
+    public FairQueueStats stats() {
+        lock.lock();
+        try {
+            Map<Long, Integer> depths = new TreeMap<>();
+            for (MerchantQueue q : active) {
+                depths.put(q.merchantId, q.tasks.size());
+            }
+            return new FairQueueStats(name, maxConcurrency, running, queued, depths);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void pump() {
+        while (true) {
+            Runnable next;
+            Long ownerId;
+            lock.lock();
+            try {
+                if (running >= maxConcurrency || active.isEmpty())
+                    return;
+                MerchantQueue owner = pick();
+                ownerId = owner.merchantId;
+                next = owner.tasks.pollFirst();
+                queued--;
+                running++;
+                settle(owner);
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                Runnable task = next;
+                delegate.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Executor de baixo saturado por outro produtor: a tarefa volta para a frente da
+                // fila do merchant, sem rodar na thread chamadora (pode ser do scheduler ou do HttpClient)
+                boolean idle;
+                lock.lock();
+                try {
+                    running--;
+                    requeueFirst(ownerId, next);
+                    idle = running == 0;
+                } finally {
+                    lock.unlock();
+                }
+                log.warn("⚠️  {} fair queue: delegate rejected, task requeued", name);
+                // Quem terminar continua o bombeamento; sem ninguém rodando, tenta de novo em instantes
+                if (idle)
+                    RETRY.execute(this::pump);
+                return;
+            }
+        }
+    }
+
+    // DRR: o merchant da vez ganha créditos quando começa uma rodada
+    private MerchantQueue pick() {
+        MerchantQueue q = active.peekFirst();
+        if (q.deficit <= 0)
+            q.deficit += (long) quantum * q.weight;
+        q.deficit--;
+        return q;
+    }
+
+    // Passa a vez quando o crédito acaba ou a fila esvazia
+    private void settle(MerchantQueue q) {
+        if (q.tasks.isEmpty()) {
+            active.pollFirst();
+            q.active = false;
+            q.deficit = 0;
+            queues.remove(q.merchantId);
+        } else if (q.deficit <= 0) {
+            active.addLast(active.pollFirst());
+        }
+    }
+
+    // Chamado com o lock: desfaz o despacho, devolvendo o crédito consumido
+    private void requeueFirst(Long merchantId, Runnable task) {
+        MerchantQueue q = queues.computeIfAbsent(merchantId, MerchantQueue::new);
+        q.tasks.addFirst(task);
+        q.deficit++;
+        queued++;
+        if (!q.active) {
+            q.active = true;
+            active.addFirst(q);
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            running--;
+        } finally {
+            lock.unlock();
+        }
+        pump();
+    }
+
+    private static final class MerchantQueue {
+        final Long merchantId;
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        long deficit;
+        int weight = 1;
+        boolean active;
+
+        MerchantQueue(Long merchantId) {
+            this.merchantId = merchantId;
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package edu.ucsal.fiadopay.config;
+
+import java.util.Map;
+
+public record FairQueueStats(String name, int maxConcurrency, int running, int queued, Map<Long, Integer> queuedByMerchant) {}
@@ -0,0 +1,10 @@
+package edu.ucsal.fiadopay.config;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Executor que expõe ocupação, fila e rejeições para monitoramento
+ */
+public interface MonitoredExecutor extends Executor {
+    ExecutorStats stats();
+}
@@ -0,0 +1,31 @@
+package edu.ucsal.fiadopay.config;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ThreadPoolTaskExecutor de threads de plataforma que contabiliza rejeições
+ */
+public final class MonitoredThreadPoolTaskExecutor extends ThreadPoolTaskExecutor implements MonitoredExecutor {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+    private final LongAdder rejected = new LongAdder();
+
+    public MonitoredThreadPoolTaskExecutor(String name) {
+        this.name = name;
+        ThreadPoolExecutor.AbortPolicy abort = new ThreadPoolExecutor.AbortPolicy();
+        setRejectedExecutionHandler((task, executor) -> {
+            rejected.increment();
+            abort.rejectedExecution(task, executor);
+        });
+    }
+
+    @Override
+    public ExecutorStats stats() {
+        return new ExecutorStats(name, "platform", getMaxPoolSize(), getActiveCount(), getQueueSize(), rejected.sum());
+    }
+}
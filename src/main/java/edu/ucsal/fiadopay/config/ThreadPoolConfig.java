@@ -1,22 +1,45 @@
 package edu.ucsal.fiadopay.config;
+import edu.ucsal.fiadopay.domain.Merchant;
+import edu.ucsal.fiadopay.service.MerchantCache;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
-import java.util.concurrent.Executor;
+import java.util.function.ToIntFunction;
 
 @Slf4j
 @Configuration
+@EnableScheduling
 public class ThreadPoolConfig {
+
+    // platform = pools fixos de threads de plataforma | virtual = virtual threads (Java 21)
+    @Value("${fiadopay.executors.mode}")
+    String mode;
+    @Value("${fiadopay.executors.virtual.queue-capacity}")
+    int virtualQueueCapacity;
+    @Value("${fiadopay.fair-queue.quantum}")
+    int fairQuantum;
+
     @Bean(name="paymentExecutor")
-    public Executor paymentExecutor() {
-        ThreadPoolTaskExecutor exec = new ThreadPoolTaskExecutor();
+    public MonitoredExecutor paymentExecutor(@Value("${fiadopay.executors.virtual.payment-concurrency}") int virtualConcurrency) {
+        if (isVirtual()) {
+            log.info("✅ Payment executor initialized: virtual threads, concurrency={}", virtualConcurrency);
+            return new VirtualThreadExecutor("payment", virtualConcurrency, virtualQueueCapacity);
+        }
+
+        MonitoredThreadPoolTaskExecutor exec = new MonitoredThreadPoolTaskExecutor("payment");
 
-        exec.setCorePoolSize(3);
+        // core = max: a fila justa despacha até maxConcurrency tarefas e todas precisam de thread,
+        // não ficar na fila do pool esperando ela encher; ociosas morrem após o keep-alive
+        exec.setCorePoolSize(8);
         exec.setMaxPoolSize(8);
         exec.setQueueCapacity(50);
         exec.setKeepAliveSeconds(60);
+        exec.setAllowCoreThreadTimeOut(true);
 
         exec.setThreadNamePrefix("payment-");
 
@@ -24,18 +47,25 @@ public class ThreadPoolConfig {
         exec.setAwaitTerminationMillis(30);
         exec.initialize();
 
-        log.info("✅ Payment executor initialized: core=3, max=8, queue=50");
+        log.info("✅ Payment executor initialized: core=8, max=8, queue=50");
         return exec;
     }
 
     @Bean(name="webhookExecutor")
-    public Executor webhookExecutor(){
-        ThreadPoolTaskExecutor exec = new ThreadPoolTaskExecutor();
+    public MonitoredExecutor webhookExecutor(@Value("${fiadopay.executors.virtual.webhook-concurrency}") int virtualConcurrency){
+        if (isVirtual()) {
+            log.info("✅ Webhook executor initialized: virtual threads, concurrency={}", virtualConcurrency);
+            return new VirtualThreadExecutor("webhook", virtualConcurrency, virtualQueueCapacity);
+        }
 
-        exec.setCorePoolSize(5);
+        MonitoredThreadPoolTaskExecutor exec = new MonitoredThreadPoolTaskExecutor("webhook");
+
+        // core = max, pelo mesmo motivo do paymentExecutor
+        exec.setCorePoolSize(10);
         exec.setMaxPoolSize(10);
         exec.setQueueCapacity(100);
         exec.setKeepAliveSeconds(60);
+        exec.setAllowCoreThreadTimeOut(true);
 
         exec.setThreadNamePrefix("webhook-");
 
@@ -44,7 +74,92 @@ public class ThreadPoolConfig {
 
         exec.initialize();
 
-        log.info("✅ Webhook executor initialized: core=5, max=10, queue=100");
+        log.info("✅ Webhook executor initialized: core=10, max=10, queue=100");
+        return exec;
+    }
+
+    @Bean(name="sinkExecutor")
+    public MonitoredExecutor sinkExecutor(@Value("${fiadopay.executors.virtual.sink-concurrency}") int virtualConcurrency) {
+        if (isVirtual()) {
+            log.info("✅ Webhook sink executor initialized: virtual threads, concurrency={}", virtualConcurrency);
+            return new VirtualThreadExecutor("webhook-sink", virtualConcurrency, virtualQueueCapacity);
+        }
+
+        MonitoredThreadPoolTaskExecutor exec = new MonitoredThreadPoolTaskExecutor("webhook-sink");
+
+        exec.setCorePoolSize(5);
+        exec.setMaxPoolSize(5);
+        exec.setQueueCapacity(1000);
+
+        exec.setThreadNamePrefix("webhook-sink-");
+        exec.setDaemon(true);
+
+        exec.initialize();
+
+        log.info("✅ Webhook sink executor initialized: core=5, max=5, queue=1000");
         return exec;
     }
+
+    @Bean(name="fraudExecutor")
+    public MonitoredExecutor fraudExecutor(@Value("${fiadopay.executors.virtual.fraud-concurrency}") int virtualConcurrency) {
+        if (isVirtual()) {
+            log.info("✅ Fraud executor initialized: virtual threads, concurrency={}", virtualConcurrency);
+            return new VirtualThreadExecutor("fraud", virtualConcurrency, virtualQueueCapacity);
+        }
+
+        MonitoredThreadPoolTaskExecutor exec = new MonitoredThreadPoolTaskExecutor("fraud");
+
+        exec.setCorePoolSize(4);
+        exec.setMaxPoolSize(8);
+        exec.setQueueCapacity(200);
+        exec.setKeepAliveSeconds(60);
+
+        exec.setThreadNamePrefix("fraud-");
+        exec.setDaemon(true);
+
+        exec.initialize();
+
+        log.info("✅ Fraud executor initialized: core=4, max=8, queue=200");
+        return exec;
+    }
+
+    // Filas justas por merchant na frente dos executors compartilhados
+    @Bean(name="fairPaymentExecutor")
+    public FairQueueExecutor fairPaymentExecutor(@Qualifier("paymentExecutor") MonitoredExecutor paymentExecutor,
+                                                 MerchantCache merchantCache) {
+        // Uma vaga fica livre para o laço do relay da outbox, que aguarda estas tarefas
+        int concurrency = Math.max(1, paymentExecutor.stats().maxConcurrency() - 1);
+        return new FairQueueExecutor("payment", paymentExecutor, concurrency, fairQuantum, weights(merchantCache));
+    }
+
+    @Bean(name="fairWebhookExecutor")
+    public FairQueueExecutor fairWebhookExecutor(@Qualifier("webhookExecutor") MonitoredExecutor webhookExecutor,
+                                                 MerchantCache merchantCache) {
+        int concurrency = webhookExecutor.stats().maxConcurrency();
+        return new FairQueueExecutor("webhook", webhookExecutor, concurrency, fairQuantum, weights(merchantCache));
+    }
+
+    private static ToIntFunction<Long> weights(MerchantCache merchantCache) {
+        return id -> id == 0L ? 1 : merchantCache.findById(id).map(Merchant::getSchedulingWeight).orElse(1);
+    }
+
+    @Bean(name="taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+
+        // Só dispara tarefas com hora marcada; o trabalho pesado vai para os executors acima
+        scheduler.setPoolSize(2);
+        scheduler.setThreadNamePrefix("scheduler-");
+        scheduler.setRemoveOnCancelPolicy(true);
+
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        scheduler.initialize();
+
+        log.info("✅ Task scheduler initialized: pool=2");
+        return scheduler;
+    }
+
+    private boolean isVirtual() {
+        return "virtual".equalsIgnoreCase(mode);
+    }
 }
@@ -0,0 +1,66 @@
+package edu.ucsal.fiadopay.config;
+
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Uma virtual thread por tarefa, com semáforo limitando quantas executam ao mesmo tempo.
+ * Tarefas sem vaga esperam estacionadas (sem custo de thread de plataforma) até
+ * {@code queueCapacity}; acima disso são rejeitadas como no pool tradicional.
+ */
+public class VirtualThreadExecutor implements MonitoredExecutor {
+
+    private final String name;
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final ThreadFactory factory;
+    private final Semaphore permits;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    public VirtualThreadExecutor(String name, int maxConcurrency, int queueCapacity) {
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.factory = Thread.ofVirtual().name(name + "-vt-", 0).factory();
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (waiting.incrementAndGet() > queueCapacity) {
+            waiting.decrementAndGet();
+            rejected.increment();
+            throw new TaskRejectedException("Executor " + name + " saturated (queue=" + queueCapacity + ")");
+        }
+
+        factory.newThread(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                waiting.decrementAndGet();
+                Thread.currentThread().interrupt();
+                return;
+            }
+            waiting.decrementAndGet();
+            active.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                active.decrementAndGet();
+                permits.release();
+            }
+        }).start();
+    }
+
+    @Override
+    public ExecutorStats stats() {
+        return new ExecutorStats(name, "virtual", maxConcurrency, active.get(), waiting.get(), rejected.sum());
+    }
+}
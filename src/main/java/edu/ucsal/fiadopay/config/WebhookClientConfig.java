@@ -0,0 +1,29 @@
+package edu.ucsal.fiadopay.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+@Slf4j
+@Configuration
+public class WebhookClientConfig {
+
+    /**
+     * Cliente HTTP único para entrega de webhooks: reaproveita conexões keep-alive
+     * e o selector entre todas as entregas, em vez de um cliente por tentativa.
+     */
+    @Bean(name = "webhookHttpClient")
+    public HttpClient webhookHttpClient(@Value("${fiadopay.webhook.connect-timeout-ms}") long connectTimeoutMs) {
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+
+        log.info("✅ Webhook HTTP client initialized: connectTimeout={}ms", connectTimeoutMs);
+        return client;
+    }
+}
@@ -0,0 +1,76 @@
+package edu.ucsal.fiadopay.controller;
+
+import edu.ucsal.fiadopay.config.ExecutorStats;
+import edu.ucsal.fiadopay.config.FairQueueExecutor;
+import edu.ucsal.fiadopay.config.FairQueueStats;
+import edu.ucsal.fiadopay.config.MonitoredExecutor;
+import edu.ucsal.fiadopay.service.AdmissionControl;
+import edu.ucsal.fiadopay.service.AdmissionStats;
+import edu.ucsal.fiadopay.service.CacheStats;
+import edu.ucsal.fiadopay.service.FraudDetectionService;
+import edu.ucsal.fiadopay.service.FraudRuleStats;
+import edu.ucsal.fiadopay.service.IdempotencyCache;
+import edu.ucsal.fiadopay.service.MerchantCache;
+import edu.ucsal.fiadopay.service.OutboxRelay;
+import edu.ucsal.fiadopay.service.OutboxStats;
+import edu.ucsal.fiadopay.service.WebhookBreakerStats;
+import edu.ucsal.fiadopay.service.WebhookDeliveryService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import lombok.RequiredArgsConstructor;
+import java.util.List;
+
+@RestController
+@RequestMapping("/fiadopay/admin/stats")
+@RequiredArgsConstructor
+public class AdminStatsController {
+  private final List<MonitoredExecutor> executors;
+  private final List<FairQueueExecutor> fairQueues;
+  private final MerchantCache merchantCache;
+  private final IdempotencyCache idempotencyCache;
+  private final AdmissionControl admissionControl;
+  private final WebhookDeliveryService webhookDeliveryService;
+  private final FraudDetectionService fraudDetectionService;
+  private final OutboxRelay outboxRelay;
+
+  @GetMapping("/executors")
+  public List<ExecutorStats> executors() {
+    return executors.stream().map(MonitoredExecutor::stats).toList();
+  }
+
+  @GetMapping("/fair-queues")
+  public List<FairQueueStats> fairQueues() {
+    return fairQueues.stream().map(FairQueueExecutor::stats).toList();
+  }
+
+  @GetMapping("/merchant-cache")
+  public CacheStats merchantCache() {
+    return merchantCache.stats();
+  }
+
+  @GetMapping("/idempotency-cache")
+  public CacheStats idempotencyCache() {
+    return idempotencyCache.stats();
+  }
+
+  @GetMapping("/admission")
+  public AdmissionStats admission() {
+    return admissionControl.stats();
+  }
+
+  @GetMapping("/webhook-breakers")
+  public List<WebhookBreakerStats> webhookBreakers() {
+    return webhookDeliveryService.breakerStats();
+  }
+
+  @GetMapping("/fraud-rules")
+  public List<FraudRuleStats> fraudRules() {
+    return fraudDetectionService.stats();
+  }
+
+  @GetMapping("/outbox")
+  public OutboxStats outbox() {
+    return outboxRelay.stats();
+  }
+}
@@ -0,0 +1,10 @@
+package edu.ucsal.fiadopay.controller;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public record BatchPaymentItem(
+    @Size(max = 64) String idempotencyKey,
+    @NotNull @Valid PaymentRequest payment
+) {}
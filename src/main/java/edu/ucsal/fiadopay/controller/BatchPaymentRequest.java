@@ -0,0 +1,11 @@
+package edu.ucsal.fiadopay.controller;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public record BatchPaymentRequest(
+    @NotEmpty @Size(max = 1000) List<@NotNull @Valid BatchPaymentItem> items
+) {}
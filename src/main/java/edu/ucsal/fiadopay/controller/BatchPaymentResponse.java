@@ -0,0 +1,5 @@
+package edu.ucsal.fiadopay.controller;
+
+import java.util.List;
+
+public record BatchPaymentResponse(int accepted, int failed, List<BatchPaymentResult> results) {}
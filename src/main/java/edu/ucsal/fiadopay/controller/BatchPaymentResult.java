@@ -0,0 +1,4 @@
+package edu.ucsal.fiadopay.controller;
+
+// payment == null quando o item falhou; error traz o motivo
+public record BatchPaymentResult(int index, String idempotencyKey, PaymentResponse payment, String error) {}
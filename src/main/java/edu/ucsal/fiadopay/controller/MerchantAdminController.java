@@ -2,6 +2,7 @@ package edu.ucsal.fiadopay.controller;
 
 import edu.ucsal.fiadopay.domain.Merchant;
 import edu.ucsal.fiadopay.repo.MerchantRepository;
+import edu.ucsal.fiadopay.service.MerchantCache;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
@@ -14,6 +15,7 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class MerchantAdminController {
   private final MerchantRepository merchants;
+  private final MerchantCache merchantCache;
 
   @PostMapping
   public Merchant create(@Valid @RequestBody MerchantCreateDTO dto) {
@@ -23,10 +25,27 @@ public class MerchantAdminController {
     var m = Merchant.builder()
         .name(dto.name())
         .webhookUrl(dto.webhookUrl())
+        .webhookBatching(Boolean.TRUE.equals(dto.webhookBatching()))
+        .schedulingWeight(dto.schedulingWeight() == null ? 1 : dto.schedulingWeight())
         .clientId(UUID.randomUUID().toString())
         .clientSecret(UUID.randomUUID().toString().replace("-", ""))
         .status(Merchant.Status.ACTIVE)
         .build();
-    return merchants.save(m);
+    var saved = merchants.save(m);
+    merchantCache.invalidate(saved.getId());
+    return saved;
+  }
+
+  @PatchMapping("/{id}")
+  public Merchant update(@PathVariable Long id, @Valid @RequestBody MerchantUpdateDTO dto) {
+    var m = merchants.findById(id)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    if (dto.webhookUrl() != null) m.setWebhookUrl(dto.webhookUrl());
+    if (dto.status() != null) m.setStatus(dto.status());
+    if (dto.webhookBatching() != null) m.setWebhookBatching(dto.webhookBatching());
+    if (dto.schedulingWeight() != null) m.setSchedulingWeight(dto.schedulingWeight());
+    var saved = merchants.save(m);
+    merchantCache.invalidate(id);
+    return saved;
   }
 }
@@ -1,9 +1,13 @@
 package edu.ucsal.fiadopay.controller;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
 public record MerchantCreateDTO(
     @NotBlank @Size(max = 120) String name,
-    @NotBlank String webhookUrl
+    @NotBlank String webhookUrl,
+    Boolean webhookBatching,
+    @Min(1) @Max(100) Integer schedulingWeight
 ) {}
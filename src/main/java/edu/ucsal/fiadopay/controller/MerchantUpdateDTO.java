@@ -0,0 +1,13 @@
+package edu.ucsal.fiadopay.controller;
+
+import edu.ucsal.fiadopay.domain.Merchant;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+// Campos nulos são mantidos
+public record MerchantUpdateDTO(
+    String webhookUrl,
+    Merchant.Status status,
+    Boolean webhookBatching,
+    @Min(1) @Max(100) Integer schedulingWeight
+) {}
@@ -0,0 +1,30 @@
+package edu.ucsal.fiadopay.controller;
+
+import edu.ucsal.fiadopay.service.LatencyStats;
+import edu.ucsal.fiadopay.service.MetricsSnapshot;
+import edu.ucsal.fiadopay.service.PaymentMetrics;
+import edu.ucsal.fiadopay.service.StageTimer;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import lombok.RequiredArgsConstructor;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/fiadopay/metrics")
+@RequiredArgsConstructor
+public class MetricsController {
+  private final PaymentMetrics metrics;
+  private final StageTimer stageTimer;
+
+  @GetMapping
+  public MetricsSnapshot metrics() {
+    return metrics.snapshot();
+  }
+
+  // Latência por etapa de createPayment, liquidação e entrega de webhook
+  @GetMapping("/stages")
+  public Map<String, LatencyStats> stages() {
+    return stageTimer.snapshot();
+  }
+}
@@ -1,12 +1,16 @@
 package edu.ucsal.fiadopay.controller;
 
+import edu.ucsal.fiadopay.domain.Payment;
 import edu.ucsal.fiadopay.service.PaymentService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import lombok.RequiredArgsConstructor;
 import jakarta.validation.Valid;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import java.time.Instant;
 
 @RestController
 @RequestMapping("/fiadopay/gateway")
@@ -25,6 +29,41 @@ public class PaymentController {
     return ResponseEntity.status(HttpStatus.CREATED).body(resp);
   }
 
+  @PostMapping("/payments/batch")
+  @SecurityRequirement(name = "bearerAuth")
+  public BatchPaymentResponse createBatch(
+      @Parameter(hidden = true) @RequestHeader("Authorization") String auth,
+      @RequestBody @Valid BatchPaymentRequest req
+  ) {
+    return service.createPayments(auth, req.items());
+  }
+
+  @GetMapping("/payments")
+  @SecurityRequirement(name = "bearerAuth")
+  public PaymentPage search(
+      @Parameter(hidden = true) @RequestHeader("Authorization") String auth,
+      @RequestParam(required = false) Payment.Status status,
+      @RequestParam(required = false) String method,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "50") int limit
+  ) {
+    return service.searchPayments(auth, status, method, cursor, limit);
+  }
+
+  // NDJSON: um pagamento por linha, escrito conforme é lido do banco
+  @GetMapping(value = "/payments/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @SecurityRequirement(name = "bearerAuth")
+  public ResponseEntity<StreamingResponseBody> export(
+      @Parameter(hidden = true) @RequestHeader("Authorization") String auth,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+      @RequestParam(required = false) Payment.Status status,
+      @RequestParam(required = false) String method
+  ) {
+    var body = service.exportPayments(auth, from, to, status, method);
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
   @GetMapping("/payments/{id}")
   public PaymentResponse get(@PathVariable String id) {
     return service.getPayment(id);
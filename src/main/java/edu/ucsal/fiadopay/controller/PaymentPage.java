@@ -0,0 +1,6 @@
+package edu.ucsal.fiadopay.controller;
+
+import java.util.List;
+
+// nextCursor == null quando não há mais páginas
+public record PaymentPage(List<PaymentSummary> items, String nextCursor) {}
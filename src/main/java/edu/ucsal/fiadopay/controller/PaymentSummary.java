@@ -0,0 +1,27 @@
+package edu.ucsal.fiadopay.controller;
+
+import edu.ucsal.fiadopay.domain.Payment;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Linha do export NDJSON: apenas os campos de conciliação
+public record PaymentSummary(
+    String id,
+    String status,
+    String method,
+    BigDecimal amount,
+    String currency,
+    Integer installments,
+    BigDecimal totalWithInterest,
+    Instant createdAt,
+    Instant updatedAt,
+    String metadataOrderId
+) {
+  public static PaymentSummary from(Payment p) {
+    return new PaymentSummary(
+        p.getId(), p.getStatus().name(), p.getMethod(),
+        p.getAmount(), p.getCurrency(), p.getInstallments(),
+        p.getTotalWithInterest(), p.getCreatedAt(), p.getUpdatedAt(),
+        p.getMetadataOrderId());
+  }
+}
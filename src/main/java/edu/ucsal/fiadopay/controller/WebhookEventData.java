@@ -4,7 +4,6 @@ import edu.ucsal.fiadopay.domain.Payment;
 import edu.ucsal.fiadopay.domain.WebhookEvent;
 
 import java.time.Instant;
-import java.util.UUID;
 
 public record WebhookEventData(
         String eventId,           // evt_abc123
@@ -12,15 +11,17 @@ public record WebhookEventData(
         String paymentId,         // pay_xyz789
         Payment.Status paymentStatus,
         Long merchantId,
+        String method,            // CARD | PIX | DEBIT | BOLETO
         Instant occurredAt
 ) {
-    public static WebhookEventData fromPayment(Payment payment, WebhookEvent event) {
+    public static WebhookEventData fromPayment(String eventId, Payment payment, WebhookEvent event) {
         return new WebhookEventData(
-                "evt_" + UUID.randomUUID().toString().substring(0, 8),
+                eventId,
                 event,
                 payment.getId(),
                 payment.getStatus(),
                 payment.getMerchantId(),
+                payment.getMethod(),
                 Instant.now()
         );
     }
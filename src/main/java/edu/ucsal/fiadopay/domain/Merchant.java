@@ -23,6 +23,14 @@ public class Merchant {
 
     private String webhookUrl;
 
+    // Agrupa eventos em um único POST assinado (array JSON) por janela de tempo
+    @Builder.Default
+    private boolean webhookBatching = false;
+
+    // Peso nas filas justas de eventos e webhooks: 2 = o dobro de vazão de um merchant com peso 1
+    @Builder.Default
+    private int schedulingWeight = 1;
+
     @Enumerated(EnumType.STRING)
     @Builder.Default
     private Status status = Status.ACTIVE;
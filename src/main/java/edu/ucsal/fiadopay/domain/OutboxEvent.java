@@ -0,0 +1,49 @@
+package edu.ucsal.fiadopay.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+// Evento gravado na mesma transação da mudança de pagamento; o OutboxRelay entrega e apaga
+@Entity
+@Data @NoArgsConstructor @AllArgsConstructor @Builder
+public class OutboxEvent {
+    // Sequence (e não IDENTITY) para os inserts entrarem no batch JDBC
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq")
+    @SequenceGenerator(name = "outbox_seq", sequenceName = "outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String eventId;     // evt_xxx
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private WebhookEvent eventType;
+
+    @Column(nullable = false)
+    private String paymentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Payment.Status paymentStatus;
+
+    @Column(nullable = false)
+    private Long merchantId;
+
+    @Column(length = 20)
+    private String method;
+
+    @Column(nullable = false)
+    private Instant occurredAt;
+
+    // Sinks internos já disparados: uma linha que fica por falha do webhook não os dispara de novo
+    @Builder.Default
+    @Column(nullable = false)
+    private boolean sinksDispatched = false;
+
+    // Publicações do webhook que falharam; em fiadopay.outbox.max-attempts a linha sai da drenagem
+    @Builder.Default
+    @Column(nullable = false)
+    private int attempts = 0;
+}
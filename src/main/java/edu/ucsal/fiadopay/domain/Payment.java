@@ -2,18 +2,26 @@ package edu.ucsal.fiadopay.domain;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.springframework.data.domain.Persistable;
 import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity
 @Data @NoArgsConstructor @AllArgsConstructor @Builder
 @Table(
-    indexes = { @Index(columnList="merchantId"), @Index(columnList="status") },
+    indexes = {
+        // Casam com a busca paginada por keyset (createdAt desc, id desc); o primeiro também atende lookups por merchantId
+        @Index(name = "ix_payment_merchant_created", columnList = "merchantId, createdAt, id"),
+        @Index(name = "ix_payment_merchant_status_created", columnList = "merchantId, status, createdAt, id"),
+        @Index(name = "ix_payment_merchant_status_method_created", columnList = "merchantId, status, method, createdAt, id"),
+        // Varredura de expiração: PENDING mais antigos primeiro
+        @Index(name = "ix_payment_status_created", columnList = "status, createdAt")
+    },
     uniqueConstraints = {
         @UniqueConstraint(name = "uk_payment_merchant_idempotency", columnNames = {"merchantId", "idempotencyKey"})
     }
 )
-public class Payment {
+public class Payment implements Persistable<String> {
     @Id
     private String id; // pay_xxx
 
@@ -52,5 +60,22 @@ public class Payment {
     @Column(length = 255)
     private String metadataOrderId;
 
+    // Id é atribuído pela aplicação: sem isso o save faria merge (SELECT + INSERT) e não entraria no batch JDBC
+    @Transient
+    @Builder.Default
+    @EqualsAndHashCode.Exclude
+    private boolean newEntity = true;
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newEntity = false;
+    }
+
     public enum Status { PENDING, APPROVED, DECLINED, EXPIRED, REFUNDED }
 }
@@ -6,18 +6,26 @@ import java.time.Instant;
 
 @Entity
 @Data @NoArgsConstructor @AllArgsConstructor @Builder
+@Table(indexes = { @Index(columnList="delivered, nextAttemptAt"), @Index(columnList="deferred, nextAttemptAt") })
 public class WebhookDelivery {
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    private String eventId;     // evt_xxx
-    private String eventType;   // payment.updated
-    private String paymentId;
+    private String eventId;     // evt_xxx | bat_xxx
+    private String eventType;   // payment.updated | payment.batch
+    private String paymentId;   // null em entregas em lote
+    private Long merchantId;    // fila justa do webhookExecutor
+    private int eventCount;     // 1, ou o tamanho do lote
     private String targetUrl;   // merchant webhook
     private String signature;   // HMAC
     private int attempts;
     private boolean delivered;
     private Instant lastAttemptAt;
+    private Instant nextAttemptAt; // null quando entregue ou esgotado
+
+    // Adiada no banco (circuito aberto com a fila de estacionadas cheia); o poll retoma em nextAttemptAt
+    @Builder.Default
+    private boolean deferred = false;
 
     @Lob
     private String payload;
@@ -3,36 +3,24 @@ package edu.ucsal.fiadopay.listener;
 
 import edu.ucsal.fiadopay.annotation.WebhookSink;
 import edu.ucsal.fiadopay.controller.WebhookEventData;
+import edu.ucsal.fiadopay.service.PaymentMetrics;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
-
 @Component
-
+@RequiredArgsConstructor
 public class MetricsCollectorListener {
 
-    private final ConcurrentHashMap<String, AtomicLong> eventsCounts  = new ConcurrentHashMap<>();
+    private final PaymentMetrics metrics;
 
+    // Assíncrono: contabilizar nunca atrasa quem disparou o evento
     @WebhookSink(
-
-            events = {"PAYMENT_APPROVED", "PAYMENT_DECLINED"},
-            async = false,
+            events = {"PAYMENT_CREATED", "PAYMENT_APPROVED", "PAYMENT_DECLINED", "PAYMENT_REFUNDED", "PAYMENT_EXPIRED"},
+            async = true,
             priority = 50,
             timeoutSeconds = 5
     )
     public void collectMetrics(WebhookEventData event) {
-
-        eventsCounts.computeIfAbsent(event.eventType().name(), k -> new AtomicLong(0))
-                .incrementAndGet();
-
-
-
-
-
+        metrics.recordEvent(event);
     }
-
-
-
 }
-
@@ -0,0 +1,12 @@
+package edu.ucsal.fiadopay.plugin.fraud;
+
+/**
+ * Resultado imutável de uma regra: score de 0.0 a 1.0 e o motivo (null quando não disparou)
+ */
+public record FraudResult(double score, String reason) {
+    public static final FraudResult NONE = new FraudResult(0.0, null);
+
+    public static FraudResult of(double score, String reason) {
+        return new FraudResult(score, reason);
+    }
+}
@@ -3,7 +3,6 @@ package edu.ucsal.fiadopay.plugin.fraud;
 import edu.ucsal.fiadopay.domain.Payment;
 
 public interface FraudRule {
-    double evaluate(Payment payment);
-
-    String getReason();
+    // Sem estado entre chamadas: regras são avaliadas em paralelo
+    FraudResult evaluate(Payment payment);
 }
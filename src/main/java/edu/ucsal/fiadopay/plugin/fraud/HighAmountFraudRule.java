@@ -6,23 +6,14 @@ import edu.ucsal.fiadopay.domain.Payment;
 @AntiFraud(name = "HighAmount", severity = "HIGH", order = 1)
 public class HighAmountFraudRule implements FraudRule {
 
-    private String reason;
-
     @Override
-    public double evaluate(Payment payment) {
+    public FraudResult evaluate(Payment payment) {
         if (payment.getAmount().doubleValue() > 10000.0) {
-            reason = "Valor muito alto: " + payment.getAmount();
-            return 0.85;
+            return FraudResult.of(0.85, "Valor muito alto: " + payment.getAmount());
         }
         if (payment.getAmount().doubleValue() > 5000.0) {
-            reason = "Valor suspeito: " + payment.getAmount();
-            return 0.55;
+            return FraudResult.of(0.55, "Valor suspeito: " + payment.getAmount());
         }
-        return 0.0;
-    }
-
-    @Override
-    public String getReason() {
-        return reason;
+        return FraudResult.NONE;
     }
 }
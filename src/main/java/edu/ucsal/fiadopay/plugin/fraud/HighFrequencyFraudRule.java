@@ -2,38 +2,27 @@ package edu.ucsal.fiadopay.plugin.fraud;
 
 import edu.ucsal.fiadopay.annotation.AntiFraud;
 import edu.ucsal.fiadopay.domain.Payment;
-import edu.ucsal.fiadopay.repo.PaymentRepository;
+import edu.ucsal.fiadopay.service.MerchantVelocityTracker;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.time.Duration;
 
 @AntiFraud(name = "HighFrequency", severity = "CRITICAL", order = 2)
 public class HighFrequencyFraudRule implements FraudRule {
 
     @Autowired
-    private PaymentRepository paymentRepository;
-
-    private String reason;
+    private MerchantVelocityTracker velocityTracker;
 
     @Override
-    public double evaluate(Payment payment) {
-        Instant fiveMinutesAgo = Instant.now().minus(5, ChronoUnit.MINUTES);
-        long count = paymentRepository.countByMerchantIdAndCreatedAtAfter(payment.getMerchantId(), fiveMinutesAgo);
+    public FraudResult evaluate(Payment payment) {
+        long count = velocityTracker.count(payment.getMerchantId(), Duration.ofMinutes(5));
 
         if (count > 10) {
-            reason = "Alta frequência de transações: " + count + " em 5 min";
-            return 0.9;
+            return FraudResult.of(0.9, "Alta frequência de transações: " + count + " em 5 min");
         }
         if (count > 5) {
-            reason = "Frequência moderada: " + count + " em 5 min";
-            return 0.6;
+            return FraudResult.of(0.6, "Frequência moderada: " + count + " em 5 min");
         }
-        return 0.0;
-    }
-
-    @Override
-    public String getReason() {
-        return reason;
+        return FraudResult.NONE;
     }
 }
@@ -3,8 +3,6 @@ package edu.ucsal.fiadopay.plugin.paymentmethod;
 import edu.ucsal.fiadopay.annotation.PaymentMethod;
 import edu.ucsal.fiadopay.domain.Payment;
 
-import java.math.BigDecimal;
-
 @PaymentMethod(type = "BOLETO", supportsInstallments = false)
 public class BoletoPaymentHandler implements PaymentHandler {
     @Override
@@ -13,14 +11,7 @@ public class BoletoPaymentHandler implements PaymentHandler {
     }
 
     @Override
-    public void process(Payment payment) {
-        payment.setInstallments(1);
-        payment.setMonthlyInterest(null);
-        payment.setTotalWithInterest(payment.getAmount());
-    }
-
-    @Override
-    public BigDecimal calculateTotal(BigDecimal amount, int installments) {
-        return amount;
+    public PricingTable pricingTable() {
+        return PricingTable.SINGLE;
     }
 }
@@ -7,7 +7,10 @@ import java.math.BigDecimal;
 public interface PaymentHandler {
     boolean validate(Payment payment);
 
-    void process(Payment payment);
+    // Tabela de preço por parcelas; lida uma vez no registro do plugin
+    PricingTable pricingTable();
 
-    BigDecimal calculateTotal(BigDecimal amount, int installments);
+    default BigDecimal calculateTotal(BigDecimal amount, int installments) {
+        return pricingTable().total(amount, installments);
+    }
 }
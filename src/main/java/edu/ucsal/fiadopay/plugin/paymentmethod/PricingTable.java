@@ -0,0 +1,62 @@
+package edu.ucsal.fiadopay.plugin.paymentmethod;
+
+import edu.ucsal.fiadopay.domain.Payment;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fatores de preço por número de parcelas, calculados uma única vez.
+ * Cada handler expõe a sua tabela; o PaymentMethodProcessor guarda a tabela
+ * no registro do plugin e o preço de um pagamento vira uma multiplicação.
+ */
+public final class PricingTable {
+
+    // À vista, sem juros (PIX, débito, boleto)
+    public static final PricingTable SINGLE = new PricingTable(null, new BigDecimal[] { null, BigDecimal.ONE });
+
+    private final Double monthlyInterest;   // em %, null quando não há juros
+    private final BigDecimal[] factors;     // índice = parcelas; [0] sem uso
+
+    private PricingTable(Double monthlyInterest, BigDecimal[] factors) {
+        this.monthlyInterest = monthlyInterest;
+        this.factors = factors;
+    }
+
+    /**
+     * Juros compostos de {@code monthlyPercent}% ao mês de 2 até {@code maxInstallments} parcelas;
+     * 1 parcela não tem juros
+     */
+    public static PricingTable compound(double monthlyPercent, int maxInstallments) {
+        BigDecimal base = BigDecimal.ONE.add(BigDecimal.valueOf(monthlyPercent).movePointLeft(2));
+        BigDecimal[] factors = new BigDecimal[maxInstallments + 1];
+        factors[1] = BigDecimal.ONE;
+        for (int n = 2; n <= maxInstallments; n++) {
+            factors[n] = base.pow(n);
+        }
+        return new PricingTable(monthlyPercent, factors);
+    }
+
+    public int maxInstallments() {
+        return factors.length - 1;
+    }
+
+    public boolean supports(int installments) {
+        return installments >= 1 && installments <= maxInstallments();
+    }
+
+    public BigDecimal total(BigDecimal amount, int installments) {
+        if (installments == 1)
+            return amount;
+        return amount.multiply(factors[installments]).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Preenche juros e total do pagamento; as parcelas já devem ter sido validadas
+     */
+    public void apply(Payment payment) {
+        int installments = payment.getInstallments();
+        payment.setMonthlyInterest(installments > 1 ? monthlyInterest : null);
+        payment.setTotalWithInterest(total(payment.getAmount(), installments));
+    }
+}
@@ -1,7 +1,9 @@
 package edu.ucsal.fiadopay.processor;
 
 import edu.ucsal.fiadopay.annotation.PaymentMethod;
+import edu.ucsal.fiadopay.domain.Payment;
 import edu.ucsal.fiadopay.plugin.paymentmethod.PaymentHandler;
+import edu.ucsal.fiadopay.plugin.paymentmethod.PricingTable;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
@@ -15,8 +17,7 @@ import java.util.Set;
 
 @Component
 public class PaymentMethodProcessor {
-    private final Map<String, PaymentHandler> handlers = new HashMap<>();
-    private final Map<String, PaymentMethod> metadata = new HashMap<>();
+    private final Map<String, RegisteredMethod> methods = new HashMap<>();
 
     @PostConstruct
     public void scanAndRegister() {
@@ -35,23 +36,42 @@ public class PaymentMethodProcessor {
                     PaymentHandler handler = (PaymentHandler) clazz.getDeclaredConstructor().newInstance();
                     String type = annotation.type().toUpperCase();
 
-                    handlers.put(type, handler);
-                    metadata.put(type, annotation);
+                    // Tabela de preço lida uma única vez, no registro
+                    methods.put(type, new RegisteredMethod(handler, annotation, handler.pricingTable()));
                 }
             } catch (Exception ignored) {
             }
         }
     }
 
+    public RegisteredMethod get(String type) {
+        return methods.get(type.toUpperCase());
+    }
+
     public PaymentHandler getHandler(String type) {
-        return handlers.get(type.toUpperCase());
+        RegisteredMethod m = get(type);
+        return m == null ? null : m.handler();
     }
 
     public PaymentMethod getMetadata(String type) {
-        return metadata.get(type.toUpperCase());
+        RegisteredMethod m = get(type);
+        return m == null ? null : m.metadata();
     }
 
     public Collection<String> getRegisteredTypes() {
-        return handlers.keySet();
+        return methods.keySet();
+    }
+
+    public record RegisteredMethod(PaymentHandler handler, PaymentMethod metadata, PricingTable pricing) {
+
+        /**
+         * Valida e precifica o pagamento numa única passada
+         */
+        public boolean validateAndPrice(Payment payment) {
+            if (!handler.validate(payment) || !pricing.supports(payment.getInstallments()))
+                return false;
+            pricing.apply(payment);
+            return true;
+        }
     }
 }
@@ -5,6 +5,7 @@ import edu.ucsal.fiadopay.controller.WebhookEventData;
 import edu.ucsal.fiadopay.domain.WebhookEvent;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
@@ -12,28 +13,45 @@ import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.Consumer;
 
 @Slf4j
 @Component
 public class WebhookSinkProcessor {
 
     private final ApplicationContext applicationContext;
-    private final ExecutorService asyncExecutor;
+    private final Executor asyncExecutor;
+    private final ScheduledThreadPoolExecutor timeoutScheduler;
 
     @Getter
     private final Map<WebhookEvent, List<SinkMethod>> eventSinks = new EnumMap<>(WebhookEvent.class);
 
-    public WebhookSinkProcessor(ApplicationContext applicationContext) {
+    public WebhookSinkProcessor(ApplicationContext applicationContext,
+                                @Qualifier("sinkExecutor") Executor asyncExecutor) {
         this.applicationContext = applicationContext;
-        this.asyncExecutor = Executors.newFixedThreadPool(5, r -> {
-            Thread t = new Thread(r);
-            t.setName("webhook-sink-" + t.getName());
+        this.asyncExecutor = asyncExecutor;
+        // Uma única thread vigia os timeouts de todos os sinks
+        this.timeoutScheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "webhook-sink-timeout");
             t.setDaemon(true);
             return t;
         });
+        timeoutScheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timeoutScheduler.shutdownNow();
     }
 
     @PostConstruct
@@ -68,8 +86,11 @@ public class WebhookSinkProcessor {
                             continue;
                         }
 
-                        // Cria wrapper com bean + method + annotation
-                        SinkMethod sinkMethod = new SinkMethod(bean, method, annotation);
+                        // Compila a chamada uma única vez (sem Method.invoke no dispatch)
+                        SinkMethod sinkMethod = new SinkMethod(
+                                clazz.getSimpleName() + "." + method.getName(),
+                                compile(bean, method),
+                                annotation);
 
                         // Registra para cada evento configurado
                         for (String eventName : annotation.events()) {
@@ -97,7 +118,7 @@ public class WebhookSinkProcessor {
 
         // Ordena sinks por prioridade (menor = executa primeiro)
         eventSinks.values().forEach(sinks ->
-                sinks.sort(Comparator.comparingInt(s -> s.annotation.priority()))
+                sinks.sort(Comparator.comparingInt(s -> s.annotation().priority()))
         );
 
         int totalSinks = eventSinks.values().stream().mapToInt(List::size).sum();
@@ -118,50 +139,72 @@ public class WebhookSinkProcessor {
         log.info("📤 Dispatching {} to {} sinks", eventData.eventType(), sinks.size());
 
         for (SinkMethod sink : sinks) {
-            if (sink.annotation.async()) {
-                // Execução assíncrona em thread pool
-                asyncExecutor.submit(() -> executeSink(sink, eventData));
-            } else {
-                // Execução síncrona (bloqueia até completar)
-                executeSink(sink, eventData);
-            }
+            executeSink(sink, eventData);
         }
     }
 
     /**
-     * Executa um sink individual com timeout safety
+     * Executa um sink individual com timeout safety.
+     * O timeout é vigiado pelo timeoutScheduler compartilhado, que cancela (interrompe) a execução;
+     * o prazo só começa quando o sink começa a rodar, não quando entra na fila do executor.
      */
     private void executeSink(SinkMethod sink, WebhookEventData eventData) {
+        SinkExecution execution = new SinkExecution(sink, eventData);
         try {
-            // Cria executor single-thread para aplicar timeout
-            ExecutorService timeoutExecutor = Executors.newSingleThreadExecutor();
+            asyncExecutor.execute(execution);
+        } catch (RejectedExecutionException e) {
+            log.error("❌ Sink dispatch rejected: {}", sink.name());
+            return;
+        }
+
+        if (!sink.annotation().async()) {
+            // Execução síncrona: aguarda conclusão ou cancelamento pelo timeout
+            try {
+                execution.get();
+            } catch (CancellationException e) {
+                // já registrado pelo watchdog
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                log.error("❌ Sink dispatch failed: {}", sink.name(), e.getCause());
+            }
+        }
+    }
 
-            Future<?> future = timeoutExecutor.submit(() -> {
+    /**
+     * Gera um Consumer que chama o método do sink diretamente (LambdaMetafactory),
+     * com fallback para MethodHandle vinculado ao bean.
+     */
+    @SuppressWarnings("unchecked")
+    private static Consumer<WebhookEventData> compile(Object bean, Method method) throws IllegalAccessException {
+        Class<?> owner = method.getDeclaringClass();
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+        MethodHandle target = lookup.unreflect(method);
+
+        try {
+            CallSite site = LambdaMetafactory.metafactory(
+                    lookup,
+                    "accept",
+                    MethodType.methodType(Consumer.class, owner),
+                    MethodType.methodType(void.class, Object.class),
+                    target,
+                    MethodType.methodType(void.class, WebhookEventData.class));
+            return (Consumer<WebhookEventData>) site.getTarget().invoke(bean);
+        } catch (LambdaConversionException e) {
+            log.debug("Falling back to MethodHandle for sink {}.{}", owner.getSimpleName(), method.getName());
+            MethodHandle bound = target.bindTo(bean)
+                    .asType(MethodType.methodType(void.class, WebhookEventData.class));
+            return event -> {
                 try {
-                    // Invoca método via reflexão
-                    sink.method.invoke(sink.bean, eventData);
-                } catch (Exception e) {
-                    log.error("❌ Sink execution failed: {}.{}",
-                            sink.bean.getClass().getSimpleName(),
-                            sink.method.getName(), e);
+                    bound.invokeExact(event);
+                } catch (RuntimeException | Error ex) {
+                    throw ex;
+                } catch (Throwable ex) {
+                    throw new IllegalStateException(ex);
                 }
-            });
-
-            // Aplica timeout configurado na annotation
-            int timeout = sink.annotation.timeoutSeconds();
-            future.get(timeout, TimeUnit.SECONDS);
-
-            timeoutExecutor.shutdown();
-
-        } catch (TimeoutException e) {
-            log.error("⏱️  Sink timeout after {}s: {}.{}",
-                    sink.annotation.timeoutSeconds(),
-                    sink.bean.getClass().getSimpleName(),
-                    sink.method.getName());
-        } catch (Exception e) {
-            log.error("❌ Sink dispatch failed: {}.{}",
-                    sink.bean.getClass().getSimpleName(),
-                    sink.method.getName(), e);
+            };
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot compile sink " + owner.getSimpleName() + "." + method.getName(), e);
         }
     }
 
@@ -174,7 +217,46 @@ public class WebhookSinkProcessor {
     }
 
     /**
-     * Holder interno para método + bean + metadados
+     * Holder interno para chamada compilada + metadados
      */
-    private record SinkMethod(Object bean, Method method, WebhookSink annotation) {}
+    private record SinkMethod(String name, Consumer<WebhookEventData> invoker, WebhookSink annotation) {}
+
+    /**
+     * Execução de um sink; arma o watchdog de timeout ao começar e o desarma ao terminar
+     */
+    private final class SinkExecution extends FutureTask<Void> {
+        private final SinkMethod sink;
+        private volatile ScheduledFuture<?> watchdog;
+
+        SinkExecution(SinkMethod sink, WebhookEventData eventData) {
+            super(() -> {
+                try {
+                    sink.invoker().accept(eventData);
+                } catch (Throwable e) {
+                    log.error("❌ Sink execution failed: {}", sink.name(), e);
+                }
+            }, null);
+            this.sink = sink;
+        }
+
+        @Override
+        public void run() {
+            if (isDone())
+                return;
+            int timeout = sink.annotation().timeoutSeconds();
+            watchdog = timeoutScheduler.schedule(() -> {
+                if (cancel(true)) {
+                    log.error("⏱️  Sink timeout after {}s: {}", timeout, sink.name());
+                }
+            }, timeout, TimeUnit.SECONDS);
+            super.run();
+        }
+
+        @Override
+        protected void done() {
+            ScheduledFuture<?> w = watchdog;
+            if (w != null)
+                w.cancel(false);
+        }
+    }
 }
\ No newline at end of file
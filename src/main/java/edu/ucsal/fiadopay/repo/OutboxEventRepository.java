@@ -0,0 +1,30 @@
+package edu.ucsal.fiadopay.repo;
+
+import edu.ucsal.fiadopay.domain.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+  // Ordem de gravação, a partir do cursor da drenagem; o relay apaga as linhas já entregues.
+  // Linhas que esgotaram as tentativas ficam na tabela (dead-letter) e não são mais lidas
+  List<OutboxEvent> findByIdGreaterThanAndAttemptsLessThanOrderByIdAsc(Long afterId, int maxAttempts, Limit limit);
+
+  long countByAttemptsGreaterThanEqual(int maxAttempts);
+
+  @Transactional
+  @Modifying
+  @Query("update OutboxEvent e set e.sinksDispatched = true where e.id in :ids")
+  int markSinksDispatched(@Param("ids") Collection<Long> ids);
+
+  @Transactional
+  @Modifying
+  @Query("update OutboxEvent e set e.attempts = e.attempts + 1 where e.id in :ids")
+  int incrementAttempts(@Param("ids") Collection<Long> ids);
+}
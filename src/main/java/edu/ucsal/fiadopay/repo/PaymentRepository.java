@@ -1,11 +1,58 @@
 package edu.ucsal.fiadopay.repo;
 
 import edu.ucsal.fiadopay.domain.Payment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface PaymentRepository extends JpaRepository<Payment, String> {
+public interface PaymentRepository extends JpaRepository<Payment, String>, JpaSpecificationExecutor<Payment> {
   Optional<Payment> findByIdempotencyKeyAndMerchantId(String ik, Long mid);
 
-  long countByMerchantIdAndCreatedAtAfter(Long merchantId, java.time.Instant createdAt);
+  List<Payment> findByMerchantIdAndIdempotencyKeyIn(Long mid, Collection<String> keys);
+
+  @Query("select p.merchantId, p.createdAt from Payment p where p.createdAt > :since")
+  List<Object[]> findMerchantIdAndCreatedAtAfter(@Param("since") Instant since);
+
+  // Cursor somente-avanço para o export; precisa de transação aberta e o Stream deve ser fechado
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("""
+      select p from Payment p
+      where p.merchantId = :mid and p.createdAt >= :from and p.createdAt < :to
+        and (:status is null or p.status = :status)
+        and (:method is null or p.method = :method)
+      order by p.createdAt, p.id
+      """)
+  Stream<Payment> streamForExport(@Param("mid") Long mid, @Param("from") Instant from, @Param("to") Instant to,
+                                  @Param("status") Payment.Status status, @Param("method") String method);
+
+  // Mais antigos primeiro, lendo só o começo do índice (status, createdAt)
+  @Query("select p from Payment p where p.status = :status and p.createdAt < :before order by p.createdAt")
+  List<Payment> findOldestByStatus(@Param("status") Payment.Status status, @Param("before") Instant before, Limit limit);
+
+  @Query("select p.id from Payment p where p.id in :ids and p.status = :status")
+  List<String> findIdsWithStatus(@Param("ids") Collection<String> ids, @Param("status") Payment.Status status);
+
+  List<Payment> findByStatus(Payment.Status status);
+
+  // Atualização em lote; só altera quem ainda está no status esperado
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("update Payment p set p.status = :status, p.updatedAt = :updatedAt where p.id in :ids and p.status = :expected")
+  int updateStatus(@Param("ids") Collection<String> ids, @Param("expected") Payment.Status expected,
+                   @Param("status") Payment.Status status, @Param("updatedAt") Instant updatedAt);
 }
@@ -0,0 +1,36 @@
+package edu.ucsal.fiadopay.repo;
+
+import edu.ucsal.fiadopay.domain.Payment;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Instant;
+
+/**
+ * Filtros da busca de pagamentos. Só entram no SQL os filtros informados,
+ * para que o banco escolha o índice composto que casa com a consulta.
+ */
+public final class PaymentSpecs {
+
+  private PaymentSpecs() {}
+
+  public static Specification<Payment> merchant(Long mid) {
+    return (root, q, cb) -> cb.equal(root.get("merchantId"), mid);
+  }
+
+  public static Specification<Payment> status(Payment.Status status) {
+    return (root, q, cb) -> cb.equal(root.get("status"), status);
+  }
+
+  public static Specification<Payment> method(String method) {
+    return (root, q, cb) -> cb.equal(root.get("method"), method);
+  }
+
+  /**
+   * Seek da ordenação (createdAt desc, id desc): tudo que vem depois da última linha vista
+   */
+  public static Specification<Payment> before(Instant createdAt, String id) {
+    return (root, q, cb) -> cb.or(
+        cb.lessThan(root.get("createdAt"), createdAt),
+        cb.and(cb.equal(root.get("createdAt"), createdAt), cb.lessThan(root.get("id"), id)));
+  }
+}
@@ -1,4 +1,29 @@
 package edu.ucsal.fiadopay.repo;
 import edu.ucsal.fiadopay.domain.WebhookDelivery;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
-public interface WebhookDeliveryRepository extends JpaRepository<WebhookDelivery, Long> { }
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+public interface WebhookDeliveryRepository extends JpaRepository<WebhookDelivery, Long> {
+  // Pendentes pelo índice (delivered, nextAttemptAt): nextAttemptAt só é nulo em entregues ou esgotadas
+  List<WebhookDelivery> findByDeliveredFalseAndNextAttemptAtNotNullOrderByNextAttemptAtAsc();
+
+  // Adiadas que venceram, pelo índice (deferred, nextAttemptAt)
+  List<WebhookDelivery> findByDeferredTrueAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(Instant now, Limit limit);
+
+  @Transactional
+  @Modifying
+  @Query("update WebhookDelivery d set d.deferred = true, d.nextAttemptAt = :retryAt where d.id = :id")
+  int defer(@Param("id") Long id, @Param("retryAt") Instant retryAt);
+
+  @Transactional
+  @Modifying
+  @Query("update WebhookDelivery d set d.deferred = false where d.id in :ids")
+  int resumeDeferred(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,94 @@
+package edu.ucsal.fiadopay.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Controle de admissão de criações de pagamento, logo após autenticar o merchant (pelo cache)
+ * e antes de qualquer transação: um token bucket por merchant
+ * ({@code fiadopay.admission.merchant-rate}/s com rajada de {@code merchant-burst}) e um teto
+ * global de requisições em andamento ({@code max-in-flight}). Sobrecarga vira 429 com
+ * Retry-After em vez de fila crescendo. Lotes maiores que a rajada nunca seriam admitidos
+ * e recebem 413, sem Retry-After. Baldes ociosos (cheios) são descartados periodicamente.
+ */
+@Component
+public class AdmissionControl {
+
+    private final double merchantRate;
+    private final int merchantBurst;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final ConcurrentHashMap<Long, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejectedRate = new LongAdder();
+    private final LongAdder rejectedInFlight = new LongAdder();
+
+    public AdmissionControl(@Value("${fiadopay.admission.merchant-rate}") double merchantRate,
+                            @Value("${fiadopay.admission.merchant-burst}") int merchantBurst,
+                            @Value("${fiadopay.admission.max-in-flight}") int maxInFlight) {
+        this.merchantRate = merchantRate;
+        this.merchantBurst = merchantBurst;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Admite {@code cost} criações de um merchant já autenticado ou lança {@link TooManyRequestsException}
+     * (413 se {@code cost} passa de {@code merchant-burst}).
+     * A vaga global deve ser devolvida fechando o {@link Permit} retornado.
+     */
+    public Permit admit(long merchantId, int cost) {
+        // Nunca caberia no balde: 413 sem Retry-After, porque repetir o mesmo pedido não adianta
+        if (cost > merchantBurst) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Lote maior que a rajada permitida por merchant (" + merchantBurst + " itens)");
+        }
+
+        // Vaga global primeiro: sobrecarga geral não consome fichas do merchant
+        if (!inFlight.tryAcquire()) {
+            rejectedInFlight.increment();
+            throw new TooManyRequestsException("Gateway sobrecarregado, tente novamente", 1);
+        }
+
+        TokenBucket bucket = buckets.get(merchantId);
+        if (bucket == null)
+            bucket = buckets.computeIfAbsent(merchantId, id -> new TokenBucket(merchantRate, merchantBurst));
+
+        long waitNanos = bucket.tryAcquire(cost, System.nanoTime());
+        if (waitNanos > 0) {
+            inFlight.release();
+            rejectedRate.increment();
+            throw new TooManyRequestsException("Limite de requisições do merchant excedido",
+                    TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+        }
+        admitted.increment();
+        return inFlight::release;
+    }
+
+    // Balde cheio é igual a um balde novo: remover não muda nenhuma decisão
+    @Scheduled(fixedDelayString = "${fiadopay.admission.idle-sweep-ms}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(b -> b.isIdle(now));
+    }
+
+    public AdmissionStats stats() {
+        return new AdmissionStats(maxInFlight, maxInFlight - inFlight.availablePermits(),
+                admitted.sum(), rejectedRate.sum(), rejectedInFlight.sum());
+    }
+
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
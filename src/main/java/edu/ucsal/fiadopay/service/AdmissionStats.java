@@ -0,0 +1,3 @@
+package edu.ucsal.fiadopay.service;
+
+public record AdmissionStats(int maxInFlight, int inFlight, long admitted, long rejectedRate, long rejectedInFlight) {}
@@ -0,0 +1,8 @@
+package edu.ucsal.fiadopay.service;
+
+public record CacheStats(long size, long hits, long misses, long evictions, double hitRate) {
+    static CacheStats of(long size, long hits, long misses, long evictions) {
+        long total = hits + misses;
+        return new CacheStats(size, hits, misses, evictions, total == 0 ? 0.0 : (double) hits / total);
+    }
+}
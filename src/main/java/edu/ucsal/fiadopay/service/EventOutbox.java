@@ -0,0 +1,53 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.controller.WebhookEventData;
+import edu.ucsal.fiadopay.domain.OutboxEvent;
+import edu.ucsal.fiadopay.repo.OutboxEventRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Grava eventos de pagamento na tabela de outbox, sempre dentro da transação
+ * que alterou o pagamento. Depois do commit o {@link OutboxRelay} é acordado;
+ * se o processo cair antes disso, o poll do relay recolhe as linhas.
+ */
+@Component
+public class EventOutbox {
+
+    private final OutboxEventRepository outbox;
+    private final OutboxRelay relay;
+
+    public EventOutbox(OutboxEventRepository outbox, OutboxRelay relay) {
+        this.outbox = outbox;
+        this.relay = relay;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(WebhookEventData event) {
+        outbox.save(toRow(event));
+        AfterCommit.run(relay::wake);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(List<WebhookEventData> events) {
+        if (events.isEmpty())
+            return;
+        outbox.saveAll(events.stream().map(EventOutbox::toRow).toList());
+        AfterCommit.run(relay::wake);
+    }
+
+    private static OutboxEvent toRow(WebhookEventData e) {
+        return OutboxEvent.builder()
+                .eventId(e.eventId())
+                .eventType(e.eventType())
+                .paymentId(e.paymentId())
+                .paymentStatus(e.paymentStatus())
+                .merchantId(e.merchantId())
+                .method(e.method())
+                .occurredAt(e.occurredAt())
+                .build();
+    }
+}
@@ -0,0 +1,105 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.controller.WebhookEventData;
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.domain.WebhookEvent;
+import edu.ucsal.fiadopay.repo.PaymentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Expira pagamentos que ficaram PENDING além de {@code fiadopay.expiry.pending-ttl-seconds}
+ * (por exemplo, liquidação perdida num restart ou executor saturado).
+ * Cada lote lê só o começo do índice (status, createdAt), muda o status com um único
+ * UPDATE e grava os eventos PAYMENT_EXPIRED na outbox na mesma transação. Como os
+ * expirados saem do status PENDING, o próximo lote começa de novo do início do índice,
+ * sem OFFSET, e o custo não cresce com o tamanho da tabela.
+ */
+@Slf4j
+@Service
+public class ExpirySweeper {
+
+    private final PaymentRepository payments;
+    private final EventOutbox eventOutbox;
+    private final IdGenerator idGenerator;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${fiadopay.expiry.pending-ttl-seconds}")
+    long pendingTtlSeconds;
+    @Value("${fiadopay.expiry.batch-size}")
+    int batchSize;
+    @Value("${fiadopay.expiry.max-batches-per-sweep}")
+    int maxBatchesPerSweep;
+
+    public ExpirySweeper(PaymentRepository payments,
+                         EventOutbox eventOutbox,
+                         IdGenerator idGenerator,
+                         TransactionTemplate transactionTemplate) {
+        this.payments = payments;
+        this.eventOutbox = eventOutbox;
+        this.idGenerator = idGenerator;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Scheduled(fixedDelayString = "${fiadopay.expiry.sweep-ms}")
+    public void sweep() {
+        Instant cutoff = Instant.now().minusSeconds(pendingTtlSeconds);
+        int total = 0;
+        // Limite por varredura: o que sobrar fica para a próxima
+        for (int i = 0; i < maxBatchesPerSweep; i++) {
+            int scanned;
+            try {
+                scanned = expireBatch(cutoff);
+            } catch (Exception e) {
+                log.error("❌ Expiry sweep failed", e);
+                return;
+            }
+            total += scanned;
+            if (scanned < batchSize)
+                break;
+        }
+        if (total > 0) {
+            log.info("⌛ Expired {} stale pending payments", total);
+        }
+    }
+
+    // Retorna quantos PENDING vencidos foram lidos (não quantos expiraram)
+    private int expireBatch(Instant cutoff) {
+        Integer scanned = transactionTemplate.execute(tx -> {
+            List<Payment> stale = payments.findOldestByStatus(Payment.Status.PENDING, cutoff, Limit.of(batchSize));
+            if (stale.isEmpty())
+                return 0;
+
+            List<String> ids = stale.stream().map(Payment::getId).toList();
+            Instant now = Instant.now();
+            int updated = payments.updateStatus(ids, Payment.Status.PENDING, Payment.Status.EXPIRED, now);
+
+            // Algum foi liquidado entre a leitura e o UPDATE: emite evento só para quem expirou de fato
+            Set<String> expired = updated == ids.size()
+                    ? null
+                    : new HashSet<>(payments.findIdsWithStatus(ids, Payment.Status.EXPIRED));
+
+            List<WebhookEventData> events = new ArrayList<>(updated);
+            for (Payment p : stale) {
+                if (expired != null && !expired.contains(p.getId()))
+                    continue;
+                p.setStatus(Payment.Status.EXPIRED);
+                p.setUpdatedAt(now);
+                events.add(WebhookEventData.fromPayment(idGenerator.next("evt_"), p, WebhookEvent.PAYMENT_EXPIRED));
+            }
+            eventOutbox.recordAll(events);
+            return stale.size();
+        });
+        return scanned == null ? 0 : scanned;
+    }
+}
@@ -2,10 +2,13 @@ package edu.ucsal.fiadopay.service;
 
 import edu.ucsal.fiadopay.annotation.AntiFraud;
 import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.plugin.fraud.FraudResult;
 import edu.ucsal.fiadopay.plugin.fraud.FraudRule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
@@ -16,6 +19,14 @@ import jakarta.annotation.PostConstruct;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
 public class FraudDetectionService {
@@ -25,7 +36,20 @@ public class FraudDetectionService {
     @Autowired
     private ApplicationContext applicationContext;
 
-    private List<FraudRule> rules = new ArrayList<>();
+    @Autowired
+    @Qualifier("fraudExecutor")
+    private Executor fraudExecutor;
+
+    // Desliga regras pelo nome sem mexer no @AntiFraud (ex.: benchmarks)
+    @Value("${fiadopay.fraud.disabled-rules}")
+    Set<String> disabledRules;
+
+    // Regra que estoura o orçamento ou falha: false = ignora (score 0), true = risco máximo
+    @Value("${fiadopay.fraud.fail-closed}")
+    boolean failClosed;
+
+    // Somente regras habilitadas, já ordenadas, com metadados lidos uma única vez
+    private List<RegisteredRule> rules = new ArrayList<>();
 
     @PostConstruct
     public void init() {
@@ -36,6 +60,12 @@ public class FraudDetectionService {
         for (BeanDefinition bd : scanner.findCandidateComponents(basePackage)) {
             try {
                 Class<?> clazz = Class.forName(bd.getBeanClassName());
+                AntiFraud ann = clazz.getAnnotation(AntiFraud.class);
+                if (!ann.enabled() || disabledRules.contains(ann.name())) {
+                    log.info("Skipping disabled fraud rule: {}", ann.name());
+                    continue;
+                }
+
                 FraudRule rule;
 
                 try {
@@ -45,46 +75,122 @@ public class FraudDetectionService {
                     applicationContext.getAutowireCapableBeanFactory().autowireBean(rule);
                 }
 
-                rules.add(rule);
-                log.info("Registered fraud rule: {}", clazz.getSimpleName());
+                rules.add(new RegisteredRule(rule, ann));
+                log.info("Registered fraud rule: {} [severity={}, threshold={}, budget={}ms]",
+                        ann.name(), ann.severity(), ann.threshold(), ann.timeoutMs());
             } catch (Exception e) {
                 log.error("Failed to register fraud rule: {}", bd.getBeanClassName(), e);
             }
         }
 
-        rules.sort(Comparator.comparingInt(r -> {
-            AntiFraud ann = r.getClass().getAnnotation(AntiFraud.class);
-            return ann != null ? ann.order() : Integer.MAX_VALUE;
-        }));
+        rules.sort(Comparator.comparingInt(r -> r.meta().order()));
+        rules = List.copyOf(rules);
     }
 
+    /**
+     * Avalia as regras em paralelo, cada uma dentro do seu orçamento de latência, contado a
+     * partir da submissão (inclui a espera na fila do fraudExecutor). Regra que estoura o
+     * orçamento, falha ou é recusada pelo executor é ignorada, ou conta como score máximo com
+     * {@code fiadopay.fraud.fail-closed}; de um jeito ou de outro, entra em {@link #stats()}.
+     * Encerra assim que alguma regra atinge o próprio {@code threshold}.
+     */
     public FraudEvaluation evaluate(Payment payment) {
-        double maxScore = 0.0;
-        List<String> reasons = new ArrayList<>();
+        return start(payment).await();
+    }
 
-        for (FraudRule rule : rules) {
-            AntiFraud ann = rule.getClass().getAnnotation(AntiFraud.class);
-            if (ann != null && !ann.enabled()) {
-                continue;
-            }
+    private PendingEvaluation start(Payment payment) {
+        CompletableFuture<Void> decisive = new CompletableFuture<>();
+        List<CompletableFuture<FraudResult>> pending = new ArrayList<>(rules.size());
 
-            try {
-                double score = rule.evaluate(payment);
-                if (score > 0) {
-                    maxScore = Math.max(maxScore, score);
-                    if (rule.getReason() != null) {
-                        reasons.add(rule.getReason());
+        for (RegisteredRule rule : rules) {
+            CompletableFuture<FraudResult> result = submit(rule, payment);
+            result.thenAccept(r -> {
+                if (r.score() >= rule.meta().threshold()) {
+                    decisive.complete(null);
+                }
+            });
+            pending.add(result);
+        }
+        return new PendingEvaluation(decisive, pending);
+    }
+
+    private CompletableFuture<FraudResult> submit(RegisteredRule rule, Payment payment) {
+        // O orçamento começa na submissão: a espera na fila também conta para a latência da criação
+        CompletableFuture<FraudResult> result = new CompletableFuture<FraudResult>()
+                .orTimeout(rule.meta().timeoutMs(), TimeUnit.MILLISECONDS);
+        try {
+            fraudExecutor.execute(() -> {
+                // Estourou o orçamento ainda na fila: nem roda
+                if (result.isDone())
+                    return;
+                try {
+                    result.complete(rule.rule().evaluate(payment));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Executor saturado: não roda na thread chamadora, conta como regra indisponível
+            result.completeExceptionally(e);
+        }
+        return result.exceptionally(e -> unavailable(rule, e));
+    }
+
+    private FraudResult unavailable(RegisteredRule rule, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof TimeoutException) {
+            rule.timeouts().increment();
+        } else {
+            rule.errors().increment();
+        }
+        if (failClosed) {
+            log.warn("Rule {} unavailable ({}), treating as high risk", rule.meta().name(), cause.toString());
+            return FraudResult.of(1.0, "Regra " + rule.meta().name() + " indisponível");
+        }
+        log.warn("Rule {} unavailable ({}), ignoring it", rule.meta().name(), cause.toString());
+        return FraudResult.NONE;
+    }
+
+    public List<FraudRuleStats> stats() {
+        return rules.stream()
+                .map(r -> new FraudRuleStats(r.meta().name(), r.timeouts().sum(), r.errors().sum(), failClosed))
+                .toList();
+    }
+
+    private record RegisteredRule(FraudRule rule, AntiFraud meta, LongAdder timeouts, LongAdder errors) {
+        RegisteredRule(FraudRule rule, AntiFraud meta) {
+            this(rule, meta, new LongAdder(), new LongAdder());
+        }
+    }
+
+    private final class PendingEvaluation {
+        private final CompletableFuture<Void> decisive;
+        private final List<CompletableFuture<FraudResult>> pending;
+
+        PendingEvaluation(CompletableFuture<Void> decisive, List<CompletableFuture<FraudResult>> pending) {
+            this.decisive = decisive;
+            this.pending = pending;
+        }
+
+        FraudEvaluation await() {
+            CompletableFuture.anyOf(decisive, CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))).join();
+
+            double maxScore = 0.0;
+            List<String> reasons = new ArrayList<>();
+            for (int i = 0; i < rules.size(); i++) {
+                // Regras ainda rodando após a decisão são ignoradas
+                FraudResult r = pending.get(i).getNow(FraudResult.NONE);
+                if (r.score() > 0) {
+                    AntiFraud ann = rules.get(i).meta();
+                    maxScore = Math.max(maxScore, r.score());
+                    if (r.reason() != null) {
+                        reasons.add(r.reason());
                     }
-                    log.info("Rule {} triggered: score={}, severity={}",
-                            ann != null ? ann.name() : rule.getClass().getSimpleName(),
-                            score,
-                            ann != null ? ann.severity() : "UNKNOWN");
+                    log.info("Rule {} triggered: score={}, severity={}", ann.name(), r.score(), ann.severity());
                 }
-            } catch (Exception e) {
-                log.error("Rule {} failed", rule.getClass().getSimpleName(), e);
             }
-        }
 
-        return new FraudEvaluation(maxScore, reasons);
+            return new FraudEvaluation(maxScore, reasons);
+        }
     }
 }
@@ -0,0 +1,8 @@
+package edu.ucsal.fiadopay.service;
+
+public record FraudRuleStats(
+        String rule,
+        long timeouts,          // estourou o orçamento (fila + execução)
+        long errors,            // exceção da regra ou fraudExecutor saturado
+        boolean failClosed      // true: indisponível conta como risco máximo
+) {}
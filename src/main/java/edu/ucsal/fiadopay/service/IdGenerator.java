@@ -0,0 +1,78 @@
+package edu.ucsal.fiadopay.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Ids ordenáveis por tempo no estilo Snowflake: 41 bits de milissegundos desde 2025-01-01,
+ * 10 bits de nó ({@code fiadopay.node-id}) e 12 bits de sequência por milissegundo.
+ * O par (tempo, sequência) avança por CAS num único AtomicLong, então os ids são
+ * monotônicos no nó mesmo com o relógio voltando. Codificados em Base32 Crockford
+ * com largura fixa, a ordem lexicográfica é a ordem de criação.
+ */
+@Component
+public class IdGenerator {
+
+    private static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    // 63 bits cabem em 13 dígitos de 5 bits
+    private static final int ENCODED_LENGTH = 13;
+
+    private final long node;
+    private final LongSupplier clock;
+    // (milissegundos << SEQUENCE_BITS) | sequência do último id emitido
+    private final AtomicLong last = new AtomicLong();
+
+    @Autowired
+    public IdGenerator(@Value("${fiadopay.node-id}") long node) {
+        this(node, System::currentTimeMillis);
+    }
+
+    // Relógio injetável para os testes (regressão de relógio, estouro da sequência)
+    IdGenerator(long node, LongSupplier clock) {
+        if (node < 0 || node > MAX_NODE)
+            throw new IllegalArgumentException("fiadopay.node-id must be between 0 and " + MAX_NODE);
+        this.node = node;
+        this.clock = clock;
+    }
+
+    public long nextLong() {
+        while (true) {
+            long now = clock.getAsLong() - EPOCH;
+            long prev = last.get();
+            // Mesmo milissegundo (ou relógio atrasado): só incrementa a sequência.
+            // Se a sequência estourar, o carry avança o tempo em 1ms, mantendo a ordem.
+            long next = now > (prev >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : prev + 1;
+            if (last.compareAndSet(prev, next)) {
+                return ((next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS))
+                        | (node << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * Próximo id com prefixo, ex.: {@code pay_01JB3M5Q8ZK0A}
+     */
+    public String next(String prefix) {
+        long id = nextLong();
+        int p = prefix.length();
+        char[] out = new char[p + ENCODED_LENGTH];
+        prefix.getChars(0, p, out, 0);
+        for (int i = out.length - 1; i >= p; i--) {
+            out[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(out);
+    }
+}
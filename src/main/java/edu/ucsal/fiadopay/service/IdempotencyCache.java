@@ -0,0 +1,155 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.controller.PaymentResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Deduplica criações com o mesmo {@code Idempotency-Key} dentro do processo.
+ * A primeira requisição de uma chave executa; duplicatas concorrentes esperam o
+ * futuro dela e recebem a mesma resposta. Chaves concluídas ficam num cache com TTL
+ * guardando só o id do pagamento: retentativas pulam a busca pela chave, mas o pagamento
+ * é relido pelo id, para a resposta trazer o status atual e não o da criação.
+ */
+@Component
+public class IdempotencyCache {
+
+    private final ConcurrentHashMap<Key, CompletableFuture<PaymentResponse>> inFlight = new ConcurrentHashMap<>();
+    private final TtlCache<Key, String> completed;
+
+    public IdempotencyCache(@Value("${fiadopay.idempotency-cache.ttl-seconds}") long ttlSeconds,
+                            @Value("${fiadopay.idempotency-cache.max-size}") int maxSize) {
+        this.completed = new TtlCache<>(ttlSeconds * 1000L, maxSize);
+    }
+
+    /**
+     * Retorna o pagamento já criado para (merchantId, key), relido por {@code read}, ou executa
+     * {@code create} uma única vez. Se a execução falhar, as duplicatas que estavam esperando
+     * recebem a mesma exceção.
+     */
+    public PaymentResponse execute(Long merchantId, String key, Supplier<PaymentResponse> create,
+                                   Function<String, Optional<PaymentResponse>> read) {
+        Key k = new Key(merchantId, key);
+        while (true) {
+            String doneId = completed.get(k);
+            if (doneId != null) {
+                var done = read.apply(doneId);
+                if (done.isPresent())
+                    return done.get();
+                completed.invalidate(k);
+            }
+
+            CompletableFuture<PaymentResponse> mine = new CompletableFuture<>();
+            CompletableFuture<PaymentResponse> running = inFlight.putIfAbsent(k, mine);
+            if (running != null) {
+                PaymentResponse response = await(running);
+                // null: um lote reservou a chave e não criou nada com ela, tenta de novo
+                if (response != null)
+                    return response;
+                continue;
+            }
+
+            try {
+                PaymentResponse response = create.get();
+                // Entra no cache antes de sair do mapa em voo: não há janela sem nenhum dos dois
+                completed.put(k, response.id());
+                mine.complete(response);
+                return response;
+            } catch (RuntimeException e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(k, mine);
+            }
+        }
+    }
+
+    /**
+     * Reserva de uma vez as chaves de um lote no mapa em voo. Chaves já concluídas voltam em
+     * {@link BatchClaim#known()}, com o id do pagamento; as demais ficam com o lote até {@link BatchClaim#release}.
+     * Se outra requisição estiver com alguma chave, solta as já reservadas antes de esperar,
+     * para dois lotes com chaves em comum não ficarem um esperando o outro.
+     */
+    public BatchClaim claimAll(Long merchantId, Collection<String> keys) {
+        retry:
+        while (true) {
+            Map<String, String> known = new HashMap<>();
+            Map<Key, CompletableFuture<PaymentResponse>> owned = new HashMap<>();
+            for (String key : keys) {
+                Key k = new Key(merchantId, key);
+                String doneId = completed.get(k);
+                if (doneId != null) {
+                    known.put(key, doneId);
+                    continue;
+                }
+                CompletableFuture<PaymentResponse> mine = new CompletableFuture<>();
+                CompletableFuture<PaymentResponse> running = inFlight.putIfAbsent(k, mine);
+                if (running == null) {
+                    owned.put(k, mine);
+                    continue;
+                }
+                new BatchClaim(known, owned).release(Map.of());
+                // Só espera terminar; o resultado (ou a falha) é relido na próxima volta
+                running.handle((r, e) -> null).join();
+                continue retry;
+            }
+            return new BatchClaim(known, owned);
+        }
+    }
+
+    public CacheStats stats() {
+        return completed.stats();
+    }
+
+    private static PaymentResponse await(CompletableFuture<PaymentResponse> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re)
+                throw re;
+            throw e;
+        }
+    }
+
+    /**
+     * Chaves reservadas por um lote. {@link #release} publica as respostas criadas; chaves
+     * sem resposta (item inválido ou transação desfeita) são liberadas para quem estiver esperando.
+     */
+    public final class BatchClaim {
+
+        private final Map<String, String> known;
+        private final Map<Key, CompletableFuture<PaymentResponse>> owned;
+
+        private BatchClaim(Map<String, String> known, Map<Key, CompletableFuture<PaymentResponse>> owned) {
+            this.known = known;
+            this.owned = owned;
+        }
+
+        // Chave -> id do pagamento
+        public Map<String, String> known() {
+            return known;
+        }
+
+        public void release(Map<String, PaymentResponse> created) {
+            owned.forEach((k, mine) -> {
+                PaymentResponse response = created.get(k.key());
+                if (response != null)
+                    completed.put(k, response.id());
+                mine.complete(response);
+                inFlight.remove(k, mine);
+            });
+        }
+    }
+
+    private record Key(Long merchantId, String key) {}
+}
@@ -0,0 +1,96 @@
+package edu.ucsal.fiadopay.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latência log-linear (no estilo HDR): cada potência de dois é dividida
+ * em 32 sub-buckets, o que dá erro relativo de ~3% em qualquer escala. Os valores são
+ * registrados em microssegundos; a escrita é um incremento atômico, sem locks.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    // Até 2^40 µs (~12 dias); acima disso satura no último bucket
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(index(MAX_VALUE) + 1);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    public void recordNanos(long nanos) {
+        record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    public void recordMillis(long millis) {
+        record(TimeUnit.MILLISECONDS.toMicros(millis));
+    }
+
+    private void record(long micros) {
+        long v = Math.min(Math.max(micros, 0), MAX_VALUE);
+        counts.incrementAndGet(index(v));
+        total.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /**
+     * Retrato aproximado (os contadores podem avançar durante a leitura), em milissegundos
+     */
+    public LatencyStats snapshot() {
+        long[] copy = new long[counts.length()];
+        long n = 0;
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+            n += copy[i];
+        }
+        if (n == 0)
+            return LatencyStats.EMPTY;
+        return new LatencyStats(
+                n,
+                toMillis((double) sum.sum() / Math.max(1, total.sum())),
+                toMillis(percentile(copy, n, 0.50)),
+                toMillis(percentile(copy, n, 0.99)),
+                toMillis(percentile(copy, n, 0.999)),
+                toMillis(max.get()));
+    }
+
+    private static double percentile(long[] copy, long n, double p) {
+        long rank = Math.max(1, (long) Math.ceil(p * n));
+        long seen = 0;
+        for (int i = 0; i < copy.length; i++) {
+            seen += copy[i];
+            if (seen >= rank)
+                return midpoint(i);
+        }
+        return midpoint(copy.length - 1);
+    }
+
+    static int index(long v) {
+        if (v < SUB_COUNT)
+            return (int) v;
+        int exponent = 63 - Long.numberOfLeadingZeros(v);
+        int shift = exponent - SUB_BITS;
+        int sub = (int) (v >>> shift) - SUB_COUNT;
+        return (shift + 1) * SUB_COUNT + sub;
+    }
+
+    // Ponto médio do intervalo coberto pelo bucket
+    private static double midpoint(int index) {
+        if (index < SUB_COUNT)
+            return index;
+        int shift = index / SUB_COUNT - 1;
+        long sub = index % SUB_COUNT;
+        long lower = (SUB_COUNT + sub) << shift;
+        return lower + ((1L << shift) - 1) / 2.0;
+    }
+
+    private static double toMillis(double micros) {
+        return Math.round(micros) / 1000.0;
+    }
+}
@@ -0,0 +1,6 @@
+package edu.ucsal.fiadopay.service;
+
+public record LatencyStats(long count, double meanMs, double p50Ms, double p99Ms, double p999Ms, double maxMs) {
+
+    public static final LatencyStats EMPTY = new LatencyStats(0, 0, 0, 0, 0, 0);
+}
@@ -0,0 +1,61 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.domain.Merchant;
+import edu.ucsal.fiadopay.repo.MerchantRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Cache de merchants por id para a autenticação e o envio de webhooks.
+ * Deve ser invalidado sempre que um merchant é criado ou alterado. Uma carga que
+ * começou antes de uma invalidação não entra no cache: o que ela leu pode ser a versão antiga.
+ */
+@Component
+public class MerchantCache {
+
+    private final MerchantRepository merchants;
+    private final TtlCache<Long, Merchant> cache;
+
+    // Conta invalidações; put e invalidate comparam/incrementam sob o mesmo lock
+    private final Object lock = new Object();
+    private long generation;
+
+    public MerchantCache(MerchantRepository merchants,
+                         @Value("${fiadopay.merchant-cache.ttl-seconds}") long ttlSeconds,
+                         @Value("${fiadopay.merchant-cache.max-size}") int maxSize) {
+        this.merchants = merchants;
+        this.cache = new TtlCache<>(ttlSeconds * 1000L, maxSize);
+    }
+
+    public Optional<Merchant> findById(Long id) {
+        Merchant cached = cache.get(id);
+        if (cached != null)
+            return Optional.of(cached);
+
+        long loadedAt;
+        synchronized (lock) {
+            loadedAt = generation;
+        }
+        Optional<Merchant> loaded = merchants.findById(id);
+        loaded.ifPresent(m -> {
+            synchronized (lock) {
+                if (generation == loadedAt)
+                    cache.put(id, m);
+            }
+        });
+        return loaded;
+    }
+
+    public void invalidate(Long id) {
+        synchronized (lock) {
+            generation++;
+            cache.invalidate(id);
+        }
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,95 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.repo.PaymentRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Contagem de pagamentos por merchant em janelas deslizantes (até 1h), em memória.
+ * Janelas de até 1 minuto usam buckets de 1s; maiores, buckets de 1 minuto.
+ * É reconstruído a partir da tabela Payment no startup. Pagamentos criados dentro de uma
+ * transação contam como provisórios até o commit; num rollback, deixam de contar.
+ */
+@Slf4j
+@Component
+public class MerchantVelocityTracker {
+
+    private static final Duration MAX_WINDOW = Duration.ofHours(1);
+
+    private final PaymentRepository payments;
+    private final ConcurrentHashMap<Long, Velocity> merchants = new ConcurrentHashMap<>();
+
+    public MerchantVelocityTracker(PaymentRepository payments) {
+        this.payments = payments;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        List<Object[]> recent = payments.findMerchantIdAndCreatedAtAfter(Instant.now().minus(MAX_WINDOW));
+        for (Object[] row : recent) {
+            record((Long) row[0], (Instant) row[1]);
+        }
+        log.info("Velocity counters rebuilt from {} recent payments", recent.size());
+    }
+
+    public void record(Long merchantId, Instant at) {
+        merchants.computeIfAbsent(merchantId, id -> new Velocity()).record(at.toEpochMilli());
+    }
+
+    /**
+     * Registra um pagamento que só existe se a transação corrente fizer commit. Até lá ele já
+     * entra em {@link #count} como provisório, para os próximos pagamentos da mesma transação
+     * (ex.: itens de um lote) e das concorrentes o enxergarem.
+     */
+    public void recordOnCommit(Long merchantId, Instant at) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(merchantId, at);
+            return;
+        }
+        Velocity v = merchants.computeIfAbsent(merchantId, id -> new Velocity());
+        v.tentative.incrementAndGet();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // Entra na janela antes de sair dos provisórios: a contagem nunca cai no meio
+                if (status == STATUS_COMMITTED)
+                    v.record(at.toEpochMilli());
+                v.tentative.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Pagamentos do merchant na janela informada, terminando agora
+     */
+    public long count(Long merchantId, Duration window) {
+        Velocity v = merchants.get(merchantId);
+        return v == null ? 0 : v.count(System.currentTimeMillis(), window);
+    }
+
+    private static final class Velocity {
+        private final SlidingWindowCounter seconds = new SlidingWindowCounter(Duration.ofSeconds(1), 60);
+        private final SlidingWindowCounter minutes = new SlidingWindowCounter(Duration.ofMinutes(1), 60);
+        // Criados em transações ainda abertas; contam em qualquer janela
+        private final AtomicInteger tentative = new AtomicInteger();
+
+        void record(long epochMillis) {
+            seconds.record(epochMillis);
+            minutes.record(epochMillis);
+        }
+
+        long count(long nowMillis, Duration window) {
+            SlidingWindowCounter ring = window.compareTo(seconds.span()) <= 0 ? seconds : minutes;
+            return ring.count(nowMillis, window) + tentative.get();
+        }
+    }
+}
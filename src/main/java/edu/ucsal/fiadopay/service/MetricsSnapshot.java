@@ -0,0 +1,11 @@
+package edu.ucsal.fiadopay.service;
+
+import java.util.Map;
+
+public record MetricsSnapshot(
+        Map<String, Long> events,              // por tipo de evento
+        Map<String, Long> methods,             // eventos por método de pagamento
+        Map<Long, Long> merchants,             // eventos por merchant
+        Map<String, Double> createdPerSecond,  // janelas "1s", "10s", "60s"
+        Map<String, LatencyStats> latency      // creation | settlement | webhookDelivery
+) {}
@@ -0,0 +1,246 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.config.FairQueueExecutor;
+import edu.ucsal.fiadopay.controller.WebhookEventData;
+import edu.ucsal.fiadopay.domain.OutboxEvent;
+import edu.ucsal.fiadopay.domain.WebhookEvent;
+import edu.ucsal.fiadopay.processor.WebhookSinkProcessor;
+import edu.ucsal.fiadopay.repo.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drena a outbox em lotes, fora da transação de quem gravou: dispara os sinks internos
+ * e publica os webhooks dos merchants. Cada linha só é apagada depois que a
+ * {@code WebhookDelivery} correspondente está gravada (no caso de merchants com lote,
+ * quando o lote é liberado); falhas deixam a linha para o próximo poll, com uma tentativa
+ * a mais. Em {@code fiadopay.outbox.max-attempts} a linha vira dead-letter: fica na tabela
+ * para inspeção e sai da drenagem. Os sinks internos de uma linha rodam uma vez só: a linha
+ * é marcada ao dispará-los, e retentativas do webhook não os repetem. Entrega ao menos
+ * uma vez; uma queda entre a entrega e o delete reenvia o evento com o mesmo eventId.
+ * Eventos do mesmo pagamento são entregues em ordem; pagamentos diferentes em paralelo,
+ * pela fila justa por merchant do paymentExecutor.
+ */
+@Slf4j
+@Service
+public class OutboxRelay {
+
+    private final OutboxEventRepository outbox;
+    private final WebhookSinkProcessor webhookSinkProcessor;
+    private final WebhookDeliveryService webhookDeliveryService;
+    private final Executor paymentExecutor;
+    private final FairQueueExecutor fairPaymentExecutor;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean pending;
+
+    @Value("${fiadopay.outbox.batch-size}")
+    int batchSize;
+    @Value("${fiadopay.outbox.max-attempts}")
+    int maxAttempts;
+
+    public OutboxRelay(OutboxEventRepository outbox,
+                       WebhookSinkProcessor webhookSinkProcessor,
+                       WebhookDeliveryService webhookDeliveryService,
+                       @Qualifier("paymentExecutor") Executor paymentExecutor,
+                       @Qualifier("fairPaymentExecutor") FairQueueExecutor fairPaymentExecutor) {
+        this.outbox = outbox;
+        this.webhookSinkProcessor = webhookSinkProcessor;
+        this.webhookDeliveryService = webhookDeliveryService;
+        this.paymentExecutor = paymentExecutor;
+        this.fairPaymentExecutor = fairPaymentExecutor;
+    }
+
+    /**
+     * Pede uma drenagem; chamadas durante uma drenagem em curso só marcam mais uma volta
+     */
+    public void wake() {
+        pending = true;
+        if (!running.compareAndSet(false, true))
+            return;
+        try {
+            paymentExecutor.execute(this::drainLoop);
+        } catch (RejectedExecutionException e) {
+            // Executor saturado: o poll periódico tenta de novo
+            running.set(false);
+        }
+    }
+
+    // Recolhe o que sobrou de um restart ou de um wake rejeitado
+    @Scheduled(fixedDelayString = "${fiadopay.outbox.poll-ms}")
+    public void poll() {
+        wake();
+    }
+
+    private void drainLoop() {
+        try {
+            do {
+                pending = false;
+                drain();
+            } while (pending);
+        } catch (Exception e) {
+            log.error("❌ Outbox relay failed", e);
+        } finally {
+            running.set(false);
+        }
+        // wake() que chegou entre o último teste e a liberação da flag
+        if (pending)
+            wake();
+    }
+
+    /**
+     * Percorre a outbox com um cursor em memória: linhas de lotes de webhook ainda abertos
+     * não são relidas, e a drenagem só termina depois que todas foram gravadas ou falharam.
+     */
+    private void drain() {
+        Progress progress = new Progress();
+        List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+        long afterId = 0;
+        List<OutboxEvent> batch;
+        try {
+            do {
+                batch = outbox.findByIdGreaterThanAndAttemptsLessThanOrderByIdAsc(afterId, maxAttempts, Limit.of(batchSize));
+                if (batch.isEmpty())
+                    break;
+                afterId = batch.get(batch.size() - 1).getId();
+                inFlight.add(deliver(batch, progress));
+                inFlight.removeIf(CompletableFuture::isDone);
+                save(progress);
+            } while (batch.size() == batchSize);
+        } finally {
+            CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).join();
+            save(progress);
+        }
+    }
+
+    // Grava o que a drenagem já sabe: sinks disparados, tentativas falhas e linhas entregues
+    private void save(Progress progress) {
+        List<Long> dispatched = drainIds(progress.sinksDispatched());
+        if (!dispatched.isEmpty())
+            outbox.markSinksDispatched(dispatched);
+
+        List<OutboxEvent> failedRows = new ArrayList<>();
+        for (OutboxEvent row; (row = progress.failed().poll()) != null; ) {
+            failedRows.add(row);
+        }
+        if (!failedRows.isEmpty()) {
+            outbox.incrementAttempts(failedRows.stream().map(OutboxEvent::getId).toList());
+            for (OutboxEvent row : failedRows) {
+                if (row.getAttempts() + 1 >= maxAttempts) {
+                    log.error("☠️  Outbox event {} dead-lettered after {} failed attempts", row.getEventId(), maxAttempts);
+                }
+            }
+        }
+
+        List<Long> ids = drainIds(progress.delivered());
+        if (ids.isEmpty())
+            return;
+        outbox.deleteAllByIdInBatch(ids);
+        log.debug("📤 Relayed {} outbox events", ids.size());
+    }
+
+    private static List<Long> drainIds(Queue<Long> queue) {
+        List<Long> ids = new ArrayList<>();
+        for (Long id; (id = queue.poll()) != null; ) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    public OutboxStats stats() {
+        return new OutboxStats(outbox.countByAttemptsGreaterThanEqual(maxAttempts));
+    }
+
+    // Completa quando todas as linhas do lote foram gravadas ou falharam; nunca com erro
+    private CompletableFuture<Void> deliver(List<OutboxEvent> batch, Progress progress) {
+        Map<String, List<OutboxEvent>> byPayment = new LinkedHashMap<>();
+        for (OutboxEvent row : batch) {
+            byPayment.computeIfAbsent(row.getPaymentId(), k -> new ArrayList<>()).add(row);
+        }
+
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(byPayment.size());
+        for (List<OutboxEvent> rows : byPayment.values()) {
+            Long merchantId = rows.get(0).getMerchantId();
+            // Um lote dominado por um merchant não segura os eventos dos outros
+            tasks.add(CompletableFuture.supplyAsync(() -> deliverInOrder(rows, progress),
+                            r -> fairPaymentExecutor.execute(merchantId, r))
+                    .thenCompose(stored -> stored)
+                    .exceptionally(e -> {
+                        log.error("❌ Outbox delivery failed for payment {}", rows.get(0).getPaymentId(), e);
+                        return null;
+                    }));
+        }
+        return CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new));
+    }
+
+    private CompletableFuture<Void> deliverInOrder(List<OutboxEvent> rows, Progress progress) {
+        List<CompletableFuture<Void>> stored = new ArrayList<>(rows.size());
+        for (OutboxEvent row : rows) {
+            CompletableFuture<Void> published;
+            try {
+                published = deliver(row, progress);
+            } catch (Exception e) {
+                // Os eventos seguintes do pagamento também ficam, para manter a ordem no próximo poll
+                log.error("❌ Outbox delivery failed for {}", row.getEventId(), e);
+                progress.failed().add(row);
+                break;
+            }
+            Long id = row.getId();
+            stored.add(published.handle((v, err) -> {
+                if (err == null) {
+                    progress.delivered().add(id);
+                } else {
+                    log.error("❌ Webhook delivery for {} was not stored, keeping it in the outbox", row.getEventId(), err);
+                    progress.failed().add(row);
+                }
+                return null;
+            }));
+        }
+        return CompletableFuture.allOf(stored.toArray(CompletableFuture[]::new));
+    }
+
+    private CompletableFuture<Void> deliver(OutboxEvent row, Progress progress) {
+        WebhookEventData event = toEventData(row);
+        // 📡 Sinks internos, uma vez por linha; o merchant só recebe mudanças de status, não a criação
+        if (!row.isSinksDispatched()) {
+            webhookSinkProcessor.dispatch(event);
+            progress.sinksDispatched().add(row.getId());
+        }
+        if (event.eventType() == WebhookEvent.PAYMENT_CREATED)
+            return CompletableFuture.completedFuture(null);
+        return webhookDeliveryService.publish(event);
+    }
+
+    // Resultados de uma drenagem, preenchidos pelas tarefas de entrega e gravados pelo laço
+    private record Progress(Queue<Long> delivered, Queue<Long> sinksDispatched, Queue<OutboxEvent> failed) {
+        Progress() {
+            this(new ConcurrentLinkedQueue<>(), new ConcurrentLinkedQueue<>(), new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    private static WebhookEventData toEventData(OutboxEvent row) {
+        return new WebhookEventData(
+                row.getEventId(),
+                row.getEventType(),
+                row.getPaymentId(),
+                row.getPaymentStatus(),
+                row.getMerchantId(),
+                row.getMethod(),
+                row.getOccurredAt());
+    }
+}
@@ -0,0 +1,5 @@
+package edu.ucsal.fiadopay.service;
+
+public record OutboxStats(
+        long deadLettered      // linhas que esgotaram fiadopay.outbox.max-attempts
+) {}
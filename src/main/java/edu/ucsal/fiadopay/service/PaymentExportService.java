@@ -0,0 +1,79 @@
+package edu.ucsal.fiadopay.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import edu.ucsal.fiadopay.controller.PaymentSummary;
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.repo.PaymentRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+/**
+ * Exporta pagamentos de um merchant em NDJSON (um objeto JSON por linha).
+ * A leitura usa um cursor somente-avanço com fetch size; cada entidade é destacada
+ * do contexto de persistência logo após ser escrita, então a memória não cresce
+ * com o número de linhas.
+ */
+@Slf4j
+@Service
+public class PaymentExportService {
+
+    private final PaymentRepository payments;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTx;
+    private final ObjectMapper objectMapper;
+
+    public PaymentExportService(PaymentRepository payments,
+                                EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper) {
+        this.payments = payments;
+        this.entityManager = entityManager;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Escreve no {@code out} os pagamentos do merchant criados em [from, to).
+     * {@code status} e {@code method} são filtros opcionais.
+     *
+     * @return quantidade de linhas escritas
+     */
+    public long export(Long merchantId, Instant from, Instant to,
+                       Payment.Status status, String method, OutputStream out) {
+        Long written = readOnlyTx.execute(tx -> {
+            long count = 0;
+            try (Stream<Payment> rows = payments.streamForExport(merchantId, from, to, status, method);
+                 SequenceWriter writer = objectMapper.writer()
+                         .withRootValueSeparator("\n")
+                         .writeValues(out)) {
+                for (var it = rows.iterator(); it.hasNext(); ) {
+                    Payment p = it.next();
+                    writer.write(PaymentSummary.from(p));
+                    entityManager.detach(p);
+                    count++;
+                }
+                // O separador só entra entre linhas; fecha a última
+                writer.flush();
+                if (count > 0)
+                    out.write('\n');
+            } catch (IOException e) {
+                // Cliente desconectou no meio do download
+                throw new UncheckedIOException(e);
+            }
+            return count;
+        });
+        log.info("📤 Exported {} payments for merchant {}", written, merchantId);
+        return written == null ? 0 : written;
+    }
+}
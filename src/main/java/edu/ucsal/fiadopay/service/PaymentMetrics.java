@@ -0,0 +1,97 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.controller.WebhookEventData;
+import edu.ucsal.fiadopay.domain.WebhookEvent;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de pagamento em memória. O caminho de escrita só usa LongAdder,
+ * CAS em buckets por segundo e incrementos atômicos nos histogramas; locks e
+ * cópias ficam todos na leitura ({@link #snapshot()}).
+ */
+@Component
+public class PaymentMetrics {
+
+    private static final Duration[] RATE_WINDOWS = { Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofSeconds(60) };
+
+    private final Map<WebhookEvent, LongAdder> byEvent = new EnumMap<>(WebhookEvent.class);
+    private final ConcurrentHashMap<String, LongAdder> byMethod = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, LongAdder> byMerchant = new ConcurrentHashMap<>();
+    private final SlidingWindowCounter created = new SlidingWindowCounter(Duration.ofSeconds(1), 60);
+
+    private final LatencyHistogram creation = new LatencyHistogram();
+    private final LatencyHistogram settlement = new LatencyHistogram();
+    private final LatencyHistogram webhookDelivery = new LatencyHistogram();
+
+    public PaymentMetrics() {
+        // Preenchido uma vez: a escrita nunca altera o mapa
+        for (WebhookEvent e : WebhookEvent.values()) {
+            byEvent.put(e, new LongAdder());
+        }
+    }
+
+    public void recordEvent(WebhookEventData event) {
+        byEvent.get(event.eventType()).increment();
+        if (event.method() != null)
+            adder(byMethod, event.method()).increment();
+        if (event.merchantId() != null)
+            adder(byMerchant, event.merchantId()).increment();
+    }
+
+    // Pagamentos PENDING criados, contados no commit: o evento da outbox chega tarde para a janela de 1s
+    public void recordCreated(int count) {
+        created.record(System.currentTimeMillis(), count);
+    }
+
+    // Duração do createPayment, da autenticação até o commit
+    public void recordCreation(long nanos) {
+        creation.recordNanos(nanos);
+    }
+
+    // Tempo entre a criação do pagamento e a liquidação
+    public void recordSettlement(long millis) {
+        settlement.recordMillis(millis);
+    }
+
+    // Ida e volta do POST ao webhook do merchant
+    public void recordWebhookDelivery(long nanos) {
+        webhookDelivery.recordNanos(nanos);
+    }
+
+    public MetricsSnapshot snapshot() {
+        Map<String, Long> events = new LinkedHashMap<>();
+        byEvent.forEach((k, v) -> events.put(k.name(), v.sum()));
+
+        Map<String, Long> methods = new TreeMap<>();
+        byMethod.forEach((k, v) -> methods.put(k, v.sum()));
+
+        Map<Long, Long> merchants = new TreeMap<>();
+        byMerchant.forEach((k, v) -> merchants.put(k, v.sum()));
+
+        long now = System.currentTimeMillis();
+        Map<String, Double> rates = new LinkedHashMap<>();
+        for (Duration w : RATE_WINDOWS) {
+            rates.put(w.toSeconds() + "s", (double) created.count(now, w) / w.toSeconds());
+        }
+
+        Map<String, LatencyStats> latency = new LinkedHashMap<>();
+        latency.put("creation", creation.snapshot());
+        latency.put("settlement", settlement.snapshot());
+        latency.put("webhookDelivery", webhookDelivery.snapshot());
+
+        return new MetricsSnapshot(events, methods, merchants, rates, latency);
+    }
+
+    private static <K> LongAdder adder(ConcurrentHashMap<K, LongAdder> map, K key) {
+        LongAdder a = map.get(key);
+        return a != null ? a : map.computeIfAbsent(key, k -> new LongAdder());
+    }
+}
@@ -1,119 +1,171 @@
 package edu.ucsal.fiadopay.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsal.fiadopay.controller.BatchPaymentItem;
+import edu.ucsal.fiadopay.controller.BatchPaymentResponse;
+import edu.ucsal.fiadopay.controller.BatchPaymentResult;
+import edu.ucsal.fiadopay.controller.PaymentPage;
 import edu.ucsal.fiadopay.controller.PaymentRequest;
 import edu.ucsal.fiadopay.controller.PaymentResponse;
+import edu.ucsal.fiadopay.controller.PaymentSummary;
 import edu.ucsal.fiadopay.controller.WebhookEventData;
 import edu.ucsal.fiadopay.domain.Merchant;
 import edu.ucsal.fiadopay.domain.Payment;
-import edu.ucsal.fiadopay.domain.WebhookDelivery;
 import edu.ucsal.fiadopay.domain.WebhookEvent;
-import edu.ucsal.fiadopay.plugin.paymentmethod.PaymentHandler;
 import edu.ucsal.fiadopay.processor.PaymentMethodProcessor;
-import edu.ucsal.fiadopay.processor.WebhookSinkProcessor;
-import edu.ucsal.fiadopay.repo.MerchantRepository;
 import edu.ucsal.fiadopay.repo.PaymentRepository;
-import edu.ucsal.fiadopay.repo.WebhookDeliveryRepository;
+import edu.ucsal.fiadopay.repo.PaymentSpecs;
+import edu.ucsal.fiadopay.service.StageTimer.Stage;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.concurrent.Executor;
-
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.time.Instant;
-import java.util.Base64;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
+import java.util.Objects;
 
 
 @Service
 public class PaymentService {
-  private final MerchantRepository merchants;
+  private final MerchantCache merchantCache;
   private final PaymentRepository payments;
-  private final WebhookDeliveryRepository deliveries;
-  private final ObjectMapper objectMapper;
 
   @Autowired
   private PaymentMethodProcessor paymentMethodProcessor;
 
   @Autowired
-  private WebhookSinkProcessor webhookSinkProcessor;
+  private FraudDetectionService fraudDetectionService;
 
   @Autowired
-  private FraudDetectionService fraudDetectionService;
+  private SettlementEngine settlementEngine;
 
   @Autowired
-  @Qualifier("paymentExecutor")
-  private Executor paymentExecutor;
+  private MerchantVelocityTracker velocityTracker;
 
   @Autowired
-  @Qualifier("webhookExecutor")
-  private Executor webhookExecutor;
+  private EventOutbox eventOutbox;
 
-  private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(PaymentService.class);
+  @Autowired
+  private PaymentExportService paymentExportService;
+
+  @Autowired
+  private IdempotencyCache idempotencyCache;
 
-  @Value("${fiadopay.webhook-secret}")
-  String secret;
-  @Value("${fiadopay.processing-delay-ms}")
-  long delay;
-  @Value("${fiadopay.failure-rate}")
-  double failRate;
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private PaymentMetrics paymentMetrics;
+
+  @Autowired
+  private StageTimer stageTimer;
+
+  @Autowired
+  private IdGenerator idGenerator;
 
-  public PaymentService(MerchantRepository merchants, PaymentRepository payments, WebhookDeliveryRepository deliveries,
-      ObjectMapper objectMapper) {
-    this.merchants = merchants;
+  @Autowired
+  private AdmissionControl admissionControl;
+
+  private static final int MAX_PAGE_SIZE = 200;
+
+  private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(PaymentService.class);
+
+  public PaymentService(MerchantCache merchantCache, PaymentRepository payments) {
+    this.merchantCache = merchantCache;
     this.payments = payments;
-    this.deliveries = deliveries;
-    this.objectMapper = objectMapper;
   }
 
-  private Merchant merchantFromAuth(String auth) {
+  private static long merchantIdFromAuth(String auth) {
     if (auth == null || !auth.startsWith("Bearer FAKE-")) {
       throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
     }
     var raw = auth.substring("Bearer FAKE-".length());
-    long id;
     try {
-      id = Long.parseLong(raw);
+      return Long.parseLong(raw);
     } catch (NumberFormatException ex) {
       throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
     }
-    var merchant = merchants.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+  }
+
+  private Merchant merchantFromAuth(String auth) {
+    return merchantById(merchantIdFromAuth(auth));
+  }
+
+  private Merchant merchantById(long id) {
+    var merchant = merchantCache.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
     if (merchant.getStatus() != Merchant.Status.ACTIVE) {
       throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
     }
     return merchant;
   }
 
-  @Transactional
   public PaymentResponse createPayment(String auth, String idemKey, PaymentRequest req) {
-    var merchant = merchantFromAuth(auth);
+    long start = System.nanoTime();
+    var trace = stageTimer.begin("createPayment", start);
+    PaymentResponse response = null;
+    try {
+      // Autentica pelo cache antes da admissão: token inválido não cria balde nem conta como admitido
+      var merchant = merchantFromAuth(auth);
+      trace.mark(Stage.AUTH);
+      var permit = admissionControl.admit(merchant.getId(), 1);
+      try {
+        response = idemKey == null
+            ? transactionTemplate.execute(tx -> doCreatePayment(merchant, null, req))
+            : idempotencyCache.execute(merchant.getId(), idemKey, () -> createOnce(merchant, idemKey, req),
+                id -> payments.findById(id).map(this::toResponse));
+      } finally {
+        permit.close();
+      }
+      // Commit, ou a espera por uma requisição duplicada em voo
+      trace.mark(Stage.COMMIT);
+      paymentMetrics.recordCreation(System.nanoTime() - start);
+      return response;
+    } finally {
+      trace.end(response != null ? response.id() : "(failed)");
+    }
+  }
+
+  // A transação fecha antes da resposta ir para o cache de idempotência
+  private PaymentResponse createOnce(Merchant merchant, String idemKey, PaymentRequest req) {
+    try {
+      return transactionTemplate.execute(tx -> doCreatePayment(merchant, idemKey, req));
+    } catch (DataIntegrityViolationException e) {
+      // Outra instância (ou uma entrada já expirada do cache) gravou a mesma chave primeiro
+      return payments.findByIdempotencyKeyAndMerchantId(idemKey, merchant.getId())
+          .map(this::toResponse)
+          .orElseThrow(() -> e);
+    }
+  }
+
+  private PaymentResponse doCreatePayment(Merchant merchant, String idemKey, PaymentRequest req) {
     var mid = merchant.getId();
+    var trace = stageTimer.current();
 
     if (idemKey != null) {
       var existing = payments.findByIdempotencyKeyAndMerchantId(idemKey, mid);
+      trace.mark(Stage.IDEMPOTENCY);
       if (existing.isPresent())
         return toResponse(existing.get());
     }
 
     String method = req.method().toUpperCase();
-    PaymentHandler handler = paymentMethodProcessor.getHandler(method);
+    var paymentMethod = paymentMethodProcessor.get(method);
 
-    if (handler == null) {
+    if (paymentMethod == null) {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Método de pagamento não suportado");
     }
 
     var payment = Payment.builder()
-        .id("pay_" + UUID.randomUUID().toString().substring(0, 8))
+        .id(idGenerator.next("pay_"))
         .merchantId(mid)
         .method(method)
         .amount(req.amount())
@@ -126,180 +178,250 @@ public class PaymentService {
         .metadataOrderId(req.metadataOrderId())
         .build();
 
-    if (!handler.validate(payment)) {
+    if (!paymentMethod.validateAndPrice(payment)) {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Parâmetros inválidos para o método de pagamento: " + method);
     }
-
-    handler.process(payment);
+    trace.mark(Stage.VALIDATE);
 
     var fraudEval = fraudDetectionService.evaluate(payment);
+    trace.mark(Stage.FRAUD);
     log.info("Fraud evaluation for {}: score={} ({})", payment.getId(), fraudEval.score(), fraudEval.getSummary()); 
 
     if (fraudEval.isHighRisk()) {
       log.warn("Payment {} auto-declined: {}", payment.getId(), fraudEval.getSummary());
       payment.setStatus(Payment.Status.DECLINED);
       payments.save(payment);
+      velocityTracker.recordOnCommit(mid, payment.getCreatedAt());
+      trace.mark(Stage.SAVE);
       return toResponse(payment);
     }
 
-    handler.process(payment);
     payments.save(payment);
+    velocityTracker.recordOnCommit(mid, payment.getCreatedAt());
+    trace.mark(Stage.SAVE);
 
-    // 📡 Dispara sinks internos
-    webhookSinkProcessor.dispatch(
-        WebhookEventData.fromPayment(payment, WebhookEvent.PAYMENT_CREATED));
-
-    if (payment.getStatus() == Payment.Status.PENDING) {
-      paymentExecutor.execute(() -> {
-          try {
-              log.debug("💳 Processing payment {} in thread: {}", 
-                  payment.getId(), Thread.currentThread().getName());
-              processAndWebhook(payment.getId());
-          } catch (Exception e) {
-              log.error("❌ Payment processing failed for {}", payment.getId(), e);
-          }
-      });
-  } else {
-      // Se já foi recusado por fraude, envia webhook imediatamente
-      sendWebhook(payment);
-  }
+    // 📡 Sinks internos saem pela outbox, depois do commit
+    eventOutbox.record(WebhookEventData.fromPayment(idGenerator.next("evt_"), payment, WebhookEvent.PAYMENT_CREATED));
+    settlementEngine.submit(payment);
+    AfterCommit.run(() -> paymentMetrics.recordCreated(1));
+    trace.mark(Stage.OUTBOX);
 
     return toResponse(payment);
   }
 
-  public PaymentResponse getPayment(String id) {
-    return toResponse(payments.findById(id)
-        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
-  }
-
-  public Map<String, Object> refund(String auth, String paymentId) {
+  /**
+   * Cria vários pagamentos do mesmo merchant numa única transação: uma consulta de
+   * idempotência para o lote inteiro (com as chaves reservadas no mapa em voo), fraude
+   * avaliada item a item e um único saveAll (inserts agrupados via JDBC batch).
+   * Itens inválidos não derrubam o lote; voltam com o motivo em {@code error}.
+   */
+  public BatchPaymentResponse createPayments(String auth, List<BatchPaymentItem> items) {
     var merchant = merchantFromAuth(auth);
-    var p = payments.findById(paymentId)
-        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-    if (!merchant.getId().equals(p.getMerchantId())) {
-      throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+    // Admissão antes de abrir a transação (e pegar conexão)
+    var permit = admissionControl.admit(merchant.getId(), items.size());
+    try {
+      // Chaves do lote passam pelo mesmo mapa em voo das criações individuais
+      var keys = items.stream().map(BatchPaymentItem::idempotencyKey).filter(Objects::nonNull).distinct().toList();
+      var claim = idempotencyCache.claimAll(merchant.getId(), keys);
+      Map<String, PaymentResponse> created = new HashMap<>();
+      try {
+        var response = transactionTemplate.execute(tx -> createBatch(merchant, items, keys, claim.known()));
+        for (var r : response.results()) {
+          if (r.idempotencyKey() != null && r.payment() != null)
+            created.put(r.idempotencyKey(), r.payment());
+        }
+        return response;
+      } finally {
+        claim.release(created);
+      }
+    } finally {
+      permit.close();
     }
-    p.setStatus(Payment.Status.REFUNDED);
-    p.setUpdatedAt(Instant.now());
-    payments.save(p);
-    // 📡 Dispara sinks de estorno
-    webhookSinkProcessor.dispatch(
-        WebhookEventData.fromPayment(p, WebhookEvent.PAYMENT_REFUNDED));
-    sendWebhook(p);
-    return Map.of("id", "ref_" + UUID.randomUUID(), "status", "PENDING");
   }
 
-  private void processAndWebhook(String paymentId) {
-    try {
-      Thread.sleep(delay);
-    } catch (InterruptedException ignored) {
+  private BatchPaymentResponse createBatch(Merchant merchant, List<BatchPaymentItem> items,
+                                           List<String> keys, Map<String, String> known) {
+    var mid = merchant.getId();
+
+    // Chaves conhecidas pelo cache são relidas pelo id, para trazer o status atual
+    Map<String, PaymentResponse> byKey = new HashMap<>();
+    if (!known.isEmpty()) {
+      payments.findAllById(known.values()).forEach(p -> byKey.put(p.getIdempotencyKey(), toResponse(p)));
+    }
+    var unknown = keys.stream().filter(k -> !byKey.containsKey(k)).toList();
+    if (!unknown.isEmpty()) {
+      payments.findByMerchantIdAndIdempotencyKeyIn(mid, unknown).forEach(p -> byKey.put(p.getIdempotencyKey(), toResponse(p)));
     }
-    var p = payments.findById(paymentId).orElse(null);
-    if (p == null)
-      return;
 
-    var approved = Math.random() > failRate;
-    p.setStatus(approved ? Payment.Status.APPROVED : Payment.Status.DECLINED);
-    p.setUpdatedAt(Instant.now());
-    payments.save(p);
+    Map<String, Payment> inBatch = new HashMap<>();
+    BatchPaymentResult[] results = new BatchPaymentResult[items.size()];
+    List<Payment> created = new ArrayList<>();
+    List<Integer> createdIndex = new ArrayList<>();
+    Instant now = Instant.now();
+
+    for (int i = 0; i < items.size(); i++) {
+      var item = items.get(i);
+      var key = item.idempotencyKey();
+      if (key != null && byKey.containsKey(key)) {
+        results[i] = new BatchPaymentResult(i, key, byKey.get(key), null);
+        continue;
+      }
+      if (key != null && inBatch.containsKey(key)) {
+        // Resolvido no final, depois da avaliação de fraude do primeiro item
+        continue;
+      }
 
-    // 📡 Dispara sinks de mudança de status
-    WebhookEvent event = WebhookEvent.fromPaymentStatus(p.getStatus());
-    webhookSinkProcessor.dispatch(WebhookEventData.fromPayment(p, event));
+      var req = item.payment();
+      String method = req.method().toUpperCase();
+      var paymentMethod = paymentMethodProcessor.get(method);
+      if (paymentMethod == null) {
+        results[i] = new BatchPaymentResult(i, key, null, "Método de pagamento não suportado");
+        continue;
+      }
 
-    sendWebhook(p);
-  }
+      var payment = Payment.builder()
+          .id(idGenerator.next("pay_"))
+          .merchantId(mid)
+          .method(method)
+          .amount(req.amount())
+          .currency(req.currency())
+          .installments(req.installments() == null ? 1 : req.installments())
+          .status(Payment.Status.PENDING)
+          .createdAt(now)
+          .updatedAt(now)
+          .idempotencyKey(key)
+          .metadataOrderId(req.metadataOrderId())
+          .build();
 
-  private void sendWebhook(Payment p) {
-    var merchant = merchants.findById(p.getMerchantId()).orElse(null);
-    if (merchant == null || merchant.getWebhookUrl() == null || merchant.getWebhookUrl().isBlank())
-      return;
+      if (!paymentMethod.validateAndPrice(payment)) {
+        results[i] = new BatchPaymentResult(i, key, null, "Parâmetros inválidos para o método de pagamento: " + method);
+        continue;
+      }
+      if (key != null) {
+        inBatch.put(key, payment);
+      }
+      created.add(payment);
+      createdIndex.add(i);
+    }
 
-    String payload;
-    try {
-      var data = Map.of(
-          "paymentId", p.getId(),
-          "status", p.getStatus().name(),
-          "occurredAt", Instant.now().toString());
-      var event = Map.of(
-          "id", "evt_" + UUID.randomUUID().toString().substring(0, 8),
-          "type", "payment.updated",
-          "data", data);
-      payload = objectMapper.writeValueAsString(event);
-    } catch (Exception e) {
-      // fallback mínimo: não envia webhook se falhar a serialização
-      return;
+    // Um item por vez: a regra de velocidade de cada item enxerga os anteriores do lote
+    for (var payment : created) {
+      var fraudEval = fraudDetectionService.evaluate(payment);
+      if (fraudEval.isHighRisk()) {
+        log.warn("Payment {} auto-declined: {}", payment.getId(), fraudEval.getSummary());
+        payment.setStatus(Payment.Status.DECLINED);
+      }
+      velocityTracker.recordOnCommit(mid, payment.getCreatedAt());
     }
 
-    var signature = hmac(payload, secret);
-
-    var delivery = deliveries.save(WebhookDelivery.builder()
-        .eventId("evt_" + UUID.randomUUID().toString().substring(0, 8))
-        .eventType("payment.updated")
-        .paymentId(p.getId())
-        .targetUrl(merchant.getWebhookUrl())
-        .signature(signature)
-        .payload(payload)
-        .attempts(0)
-        .delivered(false)
-        .lastAttemptAt(null)
-        .build());
-
-      webhookExecutor.execute(() -> {
-        try {
-            log.debug("📡 Delivering webhook {} in thread: {}", 
-                delivery.getId(), Thread.currentThread().getName());
-            tryDeliver(delivery.getId());
-        } catch (Exception e) {
-            log.error("Webhook delivery failed for {}", delivery.getId(), e);
-        }
-      });
-  }
+    payments.saveAll(created);
 
-  private void tryDeliver(Long deliveryId) {
-    var d = deliveries.findById(deliveryId).orElse(null);
-    if (d == null)
-      return;
-    try {
-      var client = HttpClient.newHttpClient();
-      var req = HttpRequest.newBuilder(URI.create(d.getTargetUrl()))
-          .header("Content-Type", "application/json")
-          .header("X-Event-Type", d.getEventType())
-          .header("X-Signature", d.getSignature())
-          .POST(HttpRequest.BodyPublishers.ofString(d.getPayload()))
-          .build();
-      var res = client.send(req, HttpResponse.BodyHandlers.ofString());
-      d.setAttempts(d.getAttempts() + 1);
-      d.setLastAttemptAt(Instant.now());
-      d.setDelivered(res.statusCode() >= 200 && res.statusCode() < 300);
-      deliveries.save(d);
-      if (!d.isDelivered() && d.getAttempts() < 5) {
-        Thread.sleep(1000L * d.getAttempts());
-        tryDeliver(deliveryId);
+    List<WebhookEventData> events = new ArrayList<>(created.size());
+    for (int j = 0; j < created.size(); j++) {
+      var payment = created.get(j);
+      if (payment.getStatus() == Payment.Status.PENDING) {
+        events.add(WebhookEventData.fromPayment(idGenerator.next("evt_"), payment, WebhookEvent.PAYMENT_CREATED));
+        settlementEngine.submit(payment);
       }
-    } catch (Exception e) {
-      d.setAttempts(d.getAttempts() + 1);
-      d.setLastAttemptAt(Instant.now());
-      d.setDelivered(false);
-      deliveries.save(d);
-      if (d.getAttempts() < 5) {
-        try {
-          Thread.sleep(1000L * d.getAttempts());
-        } catch (InterruptedException ignored) {
-        }
-        tryDeliver(deliveryId);
+      int i = createdIndex.get(j);
+      results[i] = new BatchPaymentResult(i, items.get(i).idempotencyKey(), toResponse(payment), null);
+    }
+
+    // 📡 Sinks internos saem pela outbox, depois do commit
+    eventOutbox.recordAll(events);
+    int pending = events.size();
+    if (pending > 0) {
+      AfterCommit.run(() -> paymentMetrics.recordCreated(pending));
+    }
+
+    // Repetições no lote apontam para o pagamento criado pelo primeiro item com a mesma chave
+    int repeated = 0;
+    for (int i = 0; i < results.length; i++) {
+      if (results[i] == null) {
+        var key = items.get(i).idempotencyKey();
+        results[i] = new BatchPaymentResult(i, key, toResponse(inBatch.get(key)), null);
+        repeated++;
       }
     }
+
+    int failed = 0;
+    for (var r : results) {
+      if (r.error() != null)
+        failed++;
+    }
+    log.info("📦 Batch of {} payments for merchant {}: {} created, {} failed", items.size(), mid, created.size(), failed);
+    // Repetições no lote não contam como aceitas: já contaram pelo primeiro item
+    return new BatchPaymentResponse(results.length - failed - repeated, failed, List.of(results));
   }
 
-  private static String hmac(String payload, String secret) {
-    try {
-      var mac = javax.crypto.Mac.getInstance("HmacSHA256");
-      mac.init(new javax.crypto.spec.SecretKeySpec(secret.getBytes(), "HmacSHA256"));
-      return Base64.getEncoder().encodeToString(mac.doFinal(payload.getBytes()));
-    } catch (Exception e) {
-      return "";
+  public PaymentResponse getPayment(String id) {
+    return toResponse(payments.findById(id)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+  }
+
+  /**
+   * Autentica e valida o intervalo antes de começar a responder; a leitura do banco
+   * só acontece quando o corpo é escrito.
+   */
+  public StreamingResponseBody exportPayments(String auth, Instant from, Instant to,
+                                              Payment.Status status, String method) {
+    var merchant = merchantFromAuth(auth);
+    var end = to == null ? Instant.now() : to;
+    if (!from.isBefore(end)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Intervalo inválido: 'from' deve ser anterior a 'to'");
+    }
+    var m = method == null ? null : method.toUpperCase();
+    return out -> paymentExportService.export(merchant.getId(), from, end, status, m, out);
+  }
+
+  /**
+   * Busca paginada por keyset: cada página continua do (createdAt, id) da última linha
+   * da anterior, então páginas profundas custam o mesmo que a primeira.
+   */
+  @Transactional(readOnly = true)
+  public PaymentPage searchPayments(String auth, Payment.Status status, String method, String cursor, int limit) {
+    var merchant = merchantFromAuth(auth);
+    int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+    Specification<Payment> spec = PaymentSpecs.merchant(merchant.getId());
+    if (status != null)
+      spec = spec.and(PaymentSpecs.status(status));
+    if (method != null)
+      spec = spec.and(PaymentSpecs.method(method.toUpperCase()));
+    if (cursor != null && !cursor.isBlank()) {
+      var after = PaymentCursor.decode(cursor);
+      spec = spec.and(PaymentSpecs.before(after.createdAt(), after.id()));
+    }
+
+    // Busca uma linha a mais só para saber se existe próxima página
+    var rows = payments.findBy(spec, q -> q
+        .sortBy(Sort.by(Sort.Direction.DESC, "createdAt", "id"))
+        .limit(size + 1)
+        .all());
+
+    String next = null;
+    if (rows.size() > size) {
+      rows = rows.subList(0, size);
+      var last = rows.get(size - 1);
+      next = new PaymentCursor(last.getCreatedAt(), last.getId()).encode();
     }
+    return new PaymentPage(rows.stream().map(PaymentSummary::from).toList(), next);
+  }
+
+  @Transactional
+  public Map<String, Object> refund(String auth, String paymentId) {
+    var merchant = merchantFromAuth(auth);
+    var p = payments.findById(paymentId)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    if (!merchant.getId().equals(p.getMerchantId())) {
+      throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+    }
+    p.setStatus(Payment.Status.REFUNDED);
+    p.setUpdatedAt(Instant.now());
+    payments.save(p);
+    // 📡 Sinks de estorno e webhook do merchant saem pela outbox
+    eventOutbox.record(WebhookEventData.fromPayment(idGenerator.next("evt_"), p, WebhookEvent.PAYMENT_REFUNDED));
+    return Map.of("id", idGenerator.next("ref_"), "status", "PENDING");
   }
 
   private PaymentResponse toResponse(Payment p) {
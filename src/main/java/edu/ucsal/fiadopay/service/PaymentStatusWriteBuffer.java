@@ -0,0 +1,241 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.controller.WebhookEventData;
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.domain.WebhookEvent;
+import edu.ucsal.fiadopay.repo.PaymentRepository;
+import edu.ucsal.fiadopay.service.StageTimer.Stage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind dos resultados de liquidação. As decisões ficam em memória e são gravadas
+ * a cada {@code fiadopay.settlement.write-behind.flush-ms} ou quando o buffer enche:
+ * um UPDATE ... WHERE id IN por status, sem ler as entidades, e os eventos na outbox na
+ * mesma transação. Sinks e webhooks só disparam depois do commit, pelo relay da outbox.
+ * As gravações rodam numa thread própria, em lotes de até {@code max-size}; o scheduler só
+ * as dispara. Se a gravação falhar, o lote volta para o buffer e é tentado no próximo flush.
+ * O buffer tem teto ({@code max-pending}): cheio, o {@link SettlementEngine} deixa os
+ * vencidos na fila dele, e os pagamentos continuam PENDING no banco.
+ */
+@Slf4j
+@Component
+public class PaymentStatusWriteBuffer {
+
+    private final PaymentRepository payments;
+    private final EventOutbox eventOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentMetrics metrics;
+    private final StageTimer stageTimer;
+    private final IdGenerator idGenerator;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<StatusChange> buffer = new ArrayDeque<>();
+    // Com o lock: há uma gravação agendada ou rodando, e quantas mudanças ela leva
+    private boolean writing;
+    private int inWrite;
+
+    // Uma gravação por vez, fora das threads do scheduler
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "settlement-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Value("${fiadopay.settlement.write-behind.max-size}")
+    int maxSize;
+    @Value("${fiadopay.settlement.write-behind.max-pending}")
+    int maxPending;
+
+    public PaymentStatusWriteBuffer(PaymentRepository payments,
+                                    EventOutbox eventOutbox,
+                                    TransactionTemplate transactionTemplate,
+                                    PaymentMetrics metrics,
+                                    StageTimer stageTimer,
+                                    IdGenerator idGenerator) {
+        this.payments = payments;
+        this.eventOutbox = eventOutbox;
+        this.transactionTemplate = transactionTemplate;
+        this.metrics = metrics;
+        this.stageTimer = stageTimer;
+        this.idGenerator = idGenerator;
+    }
+
+    /**
+     * Registra a saída de PENDING de um pagamento; com um lote completo, dispara a gravação.
+     * Quem chama respeita {@link #remainingCapacity()}; acima do teto a mudança é recusada.
+     */
+    public boolean add(StatusChange change) {
+        synchronized (lock) {
+            if (buffer.size() + inWrite >= maxPending)
+                return false;
+            buffer.addLast(change);
+            if (buffer.size() < maxSize)
+                return true;
+        }
+        requestWrite();
+        return true;
+    }
+
+    /**
+     * Quantas mudanças ainda cabem antes do teto; 0 enquanto o banco não dá vazão
+     */
+    public int remainingCapacity() {
+        synchronized (lock) {
+            return Math.max(0, maxPending - buffer.size() - inWrite);
+        }
+    }
+
+    public int buffered() {
+        synchronized (lock) {
+            return buffer.size() + inWrite;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${fiadopay.settlement.write-behind.flush-ms}")
+    public void flush() {
+        requestWrite();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(30, TimeUnit.SECONDS);
+        // Grava o que sobrou na thread do shutdown
+        synchronized (lock) {
+            writing = true;
+        }
+        drain();
+    }
+
+    private void requestWrite() {
+        synchronized (lock) {
+            if (writing || buffer.isEmpty())
+                return;
+            writing = true;
+        }
+        try {
+            writer.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // Desligando: o shutdown() grava o restante
+            synchronized (lock) {
+                writing = false;
+            }
+        }
+    }
+
+    // Grava em lotes de até maxSize até esvaziar; numa falha, para e espera o próximo flush
+    private void drain() {
+        while (true) {
+            List<StatusChange> changes;
+            synchronized (lock) {
+                if (buffer.isEmpty()) {
+                    writing = false;
+                    return;
+                }
+                changes = take();
+                inWrite = changes.size();
+            }
+            boolean ok = write(changes);
+            synchronized (lock) {
+                inWrite = 0;
+                if (!ok) {
+                    // Volta na frente, na ordem original
+                    for (int i = changes.size() - 1; i >= 0; i--) {
+                        buffer.addFirst(changes.get(i));
+                    }
+                    writing = false;
+                    return;
+                }
+            }
+        }
+    }
+
+    // Chamado com o lock
+    private List<StatusChange> take() {
+        int n = Math.min(maxSize, buffer.size());
+        List<StatusChange> changes = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            changes.add(buffer.pollFirst());
+        }
+        return changes;
+    }
+
+    private boolean write(List<StatusChange> changes) {
+        var trace = stageTimer.begin("settlement");
+        try {
+            writeInTransaction(changes, trace);
+            trace.mark(Stage.SETTLE_COMMIT);
+            return true;
+        } catch (Exception e) {
+            log.error("❌ Failed to write {} settlement results, retrying on next flush", changes.size(), e);
+            return false;
+        } finally {
+            trace.end("batch of " + changes.size());
+        }
+    }
+
+    private void writeInTransaction(List<StatusChange> changes, StageTimer.Trace trace) {
+        Map<Payment.Status, List<StatusChange>> byStatus = new EnumMap<>(Payment.Status.class);
+        for (StatusChange c : changes) {
+            byStatus.computeIfAbsent(c.status(), s -> new ArrayList<>()).add(c);
+        }
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            Instant now = Instant.now();
+            List<WebhookEventData> events = new ArrayList<>(changes.size());
+            List<Long> settledMillis = new ArrayList<>(changes.size());
+            for (var entry : byStatus.entrySet()) {
+                Payment.Status status = entry.getKey();
+                List<StatusChange> group = entry.getValue();
+                List<String> ids = group.stream().map(StatusChange::paymentId).toList();
+                int updated = payments.updateStatus(ids, Payment.Status.PENDING, status, now);
+
+                // Algum saiu de PENDING por outro caminho (ex.: expirado): evento só para quem mudou aqui
+                Set<String> changed = updated == ids.size()
+                        ? null
+                        : new HashSet<>(payments.findIdsWithStatus(ids, status));
+                for (StatusChange c : group) {
+                    if (changed != null && !changed.contains(c.paymentId()))
+                        continue;
+                    settledMillis.add(now.toEpochMilli() - c.createdAt().toEpochMilli());
+                    events.add(new WebhookEventData(idGenerator.next("evt_"), WebhookEvent.fromPaymentStatus(status),
+                            c.paymentId(), status, c.merchantId(), c.method(), now));
+                }
+            }
+            trace.mark(Stage.SETTLE_UPDATE);
+
+            // 📡 Sinks de mudança de status e webhooks saem pela outbox, na mesma transação
+            eventOutbox.recordAll(events);
+            trace.mark(Stage.SETTLE_OUTBOX);
+
+            // Só conta o que foi gravado: um flush desfeito é tentado de novo e contaria duas vezes
+            AfterCommit.run(() -> settledMillis.forEach(metrics::recordSettlement));
+
+            log.debug("💳 Wrote {} settlement results ({} status changes)", changes.size(), events.size());
+        });
+    }
+
+    /**
+     * Novo status de um pagamento PENDING, com o que o evento precisa para não reler a linha
+     */
+    public record StatusChange(String paymentId, Long merchantId, String method, Instant createdAt,
+                               Payment.Status status) {}
+}
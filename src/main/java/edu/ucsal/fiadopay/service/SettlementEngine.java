@@ -0,0 +1,106 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.domain.Payment;
+import edu.ucsal.fiadopay.repo.PaymentRepository;
+import edu.ucsal.fiadopay.service.PaymentStatusWriteBuffer.StatusChange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simula o adquirente: pagamentos PENDING entram numa fila por hora de vencimento
+ * ({@code fiadopay.processing-delay-ms}) e, a cada tick, todos os vencidos são decididos
+ * e entregues ao {@link PaymentStatusWriteBuffer}, que grava os resultados em lote.
+ * Nenhuma thread fica dormindo por pagamento e o tick não acessa o banco.
+ */
+@Slf4j
+@Service
+public class SettlementEngine {
+
+    private final PaymentRepository payments;
+    private final PaymentStatusWriteBuffer writeBuffer;
+
+    private final DelayQueue<PendingSettlement> queue = new DelayQueue<>();
+
+    @Value("${fiadopay.processing-delay-ms}")
+    long delay;
+    @Value("${fiadopay.failure-rate}")
+    double failRate;
+    @Value("${fiadopay.settlement.max-batch}")
+    int maxBatch;
+
+    public SettlementEngine(PaymentRepository payments,
+                            PaymentStatusWriteBuffer writeBuffer) {
+        this.payments = payments;
+        this.writeBuffer = writeBuffer;
+    }
+
+    /**
+     * Agenda a liquidação de um pagamento PENDING; dentro de transação, só após o commit
+     */
+    public void submit(Payment payment) {
+        var pending = PendingSettlement.of(payment, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay));
+        AfterCommit.run(() -> queue.add(pending));
+    }
+
+    public int pendingCount() {
+        return queue.size() + writeBuffer.buffered();
+    }
+
+    /**
+     * Reagenda pagamentos que ficaram PENDING antes de um restart
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverPending() {
+        List<Payment> pending = payments.findByStatus(Payment.Status.PENDING);
+        long due = System.nanoTime();
+        pending.forEach(p -> queue.add(PendingSettlement.of(p, due)));
+        if (!pending.isEmpty()) {
+            log.info("🔁 Recovered {} pending payments for settlement", pending.size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${fiadopay.settlement.tick-ms}")
+    public void tick() {
+        List<PendingSettlement> batch = new ArrayList<>(Math.min(maxBatch, 256));
+        // Esvazia tudo que venceu, em lotes de até maxBatch, enquanto couber no write-behind
+        int room;
+        while ((room = writeBuffer.remainingCapacity()) > 0 && queue.drainTo(batch, Math.min(maxBatch, room)) > 0) {
+            for (PendingSettlement p : batch) {
+                boolean ok = ThreadLocalRandom.current().nextDouble() > failRate;
+                writeBuffer.add(new StatusChange(p.paymentId(), p.merchantId(), p.method(), p.createdAt(),
+                        ok ? Payment.Status.APPROVED : Payment.Status.DECLINED));
+            }
+            batch.clear();
+        }
+    }
+
+    // Carrega o que o evento precisa, para a gravação não reler o pagamento
+    private record PendingSettlement(String paymentId, Long merchantId, String method, Instant createdAt,
+                                     long dueNanos) implements Delayed {
+        static PendingSettlement of(Payment p, long dueNanos) {
+            return new PendingSettlement(p.getId(), p.getMerchantId(), p.getMethod(), p.getCreatedAt(), dueNanos);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((PendingSettlement) other).dueNanos);
+        }
+    }
+}
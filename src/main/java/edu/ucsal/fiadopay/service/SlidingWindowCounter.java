@@ -0,0 +1,76 @@
+package edu.ucsal.fiadopay.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contador em janela deslizante sem locks: anel de buckets de tamanho fixo, em que cada
+ * posição guarda o período (bits altos) e a contagem (24 bits baixos) num único long
+ * atualizado por CAS. Um bucket de período antigo é reaproveitado na primeira escrita.
+ */
+public final class SlidingWindowCounter {
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final long bucketMillis;
+    private final AtomicLongArray buckets;
+
+    public SlidingWindowCounter(Duration bucket, int bucketCount) {
+        this.bucketMillis = bucket.toMillis();
+        this.buckets = new AtomicLongArray(bucketCount);
+    }
+
+    /**
+     * Maior janela que o anel consegue responder
+     */
+    public Duration span() {
+        return Duration.ofMillis(bucketMillis * buckets.length());
+    }
+
+    public void record(long epochMillis) {
+        record(epochMillis, 1);
+    }
+
+    public void record(long epochMillis, long n) {
+        long period = epochMillis / bucketMillis;
+        int i = index(period);
+        while (true) {
+            long current = buckets.get(i);
+            long currentPeriod = current >>> COUNT_BITS;
+            long next;
+            if (currentPeriod == period) {
+                long count = current & COUNT_MASK;
+                if (count == COUNT_MASK)
+                    return; // satura em vez de transbordar para o período
+                next = current + Math.min(n, COUNT_MASK - count);
+            } else if (currentPeriod < period) {
+                next = (period << COUNT_BITS) | Math.min(n, COUNT_MASK);
+            } else {
+                return; // evento mais antigo do que o anel cobre
+            }
+            if (buckets.compareAndSet(i, current, next))
+                return;
+        }
+    }
+
+    /**
+     * Soma os buckets que cobrem a janela terminando em {@code nowMillis}
+     * (granularidade do bucket; limitado ao tamanho do anel)
+     */
+    public long count(long nowMillis, Duration window) {
+        long now = nowMillis / bucketMillis;
+        long n = Math.min(buckets.length(), Math.max(1, (window.toMillis() + bucketMillis - 1) / bucketMillis));
+        long total = 0;
+        for (long period = now - n + 1; period <= now; period++) {
+            long value = buckets.get(index(period));
+            if (value >>> COUNT_BITS == period)
+                total += value & COUNT_MASK;
+        }
+        return total;
+    }
+
+    private int index(long period) {
+        return (int) Math.floorMod(period, (long) buckets.length());
+    }
+}
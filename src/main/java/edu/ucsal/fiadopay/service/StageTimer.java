@@ -0,0 +1,159 @@
+package edu.ucsal.fiadopay.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cronômetro por etapa dos caminhos quentes (criação, liquidação e entrega de webhook).
+ * Cada thread reaproveita um único {@link Trace} com um long[] por etapa, então medir
+ * não aloca nada; cada etapa alimenta um histograma próprio. Quando a operação inteira
+ * passa de {@code fiadopay.tracing.slow-threshold-ms}, o detalhamento vai para o log.
+ */
+@Slf4j
+@Component
+public class StageTimer {
+
+    public enum Stage {
+        // createPayment
+        AUTH, IDEMPOTENCY, VALIDATE, FRAUD, SAVE, OUTBOX, COMMIT,
+        // liquidação
+        SETTLE_UPDATE, SETTLE_OUTBOX, SETTLE_COMMIT,
+        // entrega de webhook
+        WEBHOOK_LOAD, WEBHOOK_PREPARE, WEBHOOK_HTTP, WEBHOOK_RECORD
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private final boolean enabled;
+    private final long slowThresholdNanos;
+    private final Map<Stage, LatencyHistogram> histograms = new EnumMap<>(Stage.class);
+    private final ThreadLocal<Trace> traces = ThreadLocal.withInitial(() -> new Trace(this));
+    private final Trace noop = new Trace(null);
+
+    public StageTimer(@Value("${fiadopay.tracing.enabled}") boolean enabled,
+                      @Value("${fiadopay.tracing.slow-threshold-ms}") long slowThresholdMs) {
+        this.enabled = enabled;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        for (Stage s : STAGES) {
+            histograms.put(s, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Inicia a medição de uma operação na thread atual. Deve terminar com
+     * {@link Trace#end} num finally; chamadas aninhadas recebem um trace inerte.
+     */
+    public Trace begin(String operation) {
+        return begin(operation, System.nanoTime());
+    }
+
+    public Trace begin(String operation, long startNanos) {
+        if (!enabled)
+            return noop;
+        Trace t = traces.get();
+        if (t.active)
+            return noop;
+        t.reset(operation, startNanos);
+        return t;
+    }
+
+    /**
+     * Trace ativo na thread atual (ou inerte), para marcar etapas em métodos internos
+     */
+    public Trace current() {
+        if (!enabled)
+            return noop;
+        Trace t = traces.get();
+        return t.active ? t : noop;
+    }
+
+    public Map<String, LatencyStats> snapshot() {
+        Map<String, LatencyStats> out = new LinkedHashMap<>();
+        histograms.forEach((stage, h) -> out.put(stage.name(), h.snapshot()));
+        return out;
+    }
+
+    private void finish(Trace t, Object subject) {
+        for (Stage s : STAGES) {
+            if (t.touched(s))
+                histograms.get(s).recordNanos(t.nanos[s.ordinal()]);
+        }
+        long total = t.last - t.start;
+        if (total >= slowThresholdNanos && log.isWarnEnabled()) {
+            StringBuilder sb = new StringBuilder();
+            for (Stage s : STAGES) {
+                if (t.touched(s)) {
+                    sb.append(' ').append(s.name()).append('=').append(millis(t.nanos[s.ordinal()])).append("ms");
+                }
+            }
+            log.warn("🐢 Slow {} {} took {}ms:{}", t.operation, subject, millis(total), sb);
+        }
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    public static final class Trace {
+        private final StageTimer owner;
+        private final long[] nanos = new long[STAGES.length];
+        private long touched;
+        private long start;
+        private long last;
+        private String operation;
+        private boolean active;
+
+        private Trace(StageTimer owner) {
+            this.owner = owner;
+        }
+
+        private void reset(String operation, long startNanos) {
+            Arrays.fill(nanos, 0L);
+            this.touched = 0;
+            this.operation = operation;
+            this.start = startNanos;
+            this.last = startNanos;
+            this.active = true;
+        }
+
+        /**
+         * Fecha a etapa: atribui a ela o tempo desde a marca anterior
+         */
+        public void mark(Stage stage) {
+            if (owner == null)
+                return;
+            long now = System.nanoTime();
+            add(stage, now - last);
+            last = now;
+        }
+
+        /**
+         * Soma uma duração medida em outro lugar (por exemplo, em outra thread)
+         */
+        public void add(Stage stage, long elapsedNanos) {
+            if (owner == null)
+                return;
+            nanos[stage.ordinal()] += elapsedNanos;
+            touched |= 1L << stage.ordinal();
+        }
+
+        public void end(Object subject) {
+            if (owner == null || !active)
+                return;
+            active = false;
+            last = Math.max(last, System.nanoTime());
+            owner.finish(this, subject);
+        }
+
+        private boolean touched(Stage stage) {
+            return (touched & (1L << stage.ordinal())) != 0;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package edu.ucsal.fiadopay.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket sem locks na forma GCRA: guarda só o "tempo teórico de chegada" (TAT)
+ * num AtomicLong. Cada requisição empurra o TAT um intervalo para frente; se isso o
+ * deixar além da tolerância de rajada, a requisição é recusada sem alterar o estado.
+ */
+final class TokenBucket {
+
+    private final long intervalNanos;   // 1 / taxa
+    private final long burstNanos;      // capacidade do balde em tempo
+    private final AtomicLong tat = new AtomicLong(Long.MIN_VALUE);
+
+    TokenBucket(double permitsPerSecond, int burst) {
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+    }
+
+    /**
+     * Tenta consumir {@code permits} fichas.
+     *
+     * @return 0 se aceito, ou quantos nanos esperar até haver fichas suficientes
+     */
+    long tryAcquire(int permits, long nowNanos) {
+        // Custo integral: pedidos acima da rajada nunca cabem (quem chama deve recusá-los antes)
+        long cost = intervalNanos * permits;
+        while (true) {
+            long current = tat.get();
+            long base = current == Long.MIN_VALUE || current - nowNanos < 0 ? nowNanos : current;
+            long next = base + cost;
+            long excess = next - nowNanos - burstNanos;
+            if (excess > 0)
+                return excess;
+            if (tat.compareAndSet(current, next))
+                return 0;
+        }
+    }
+
+    /**
+     * Balde cheio de novo: descartá-lo equivale a recriá-lo depois
+     */
+    boolean isIdle(long nowNanos) {
+        long current = tat.get();
+        return current == Long.MIN_VALUE || current - nowNanos <= 0;
+    }
+}
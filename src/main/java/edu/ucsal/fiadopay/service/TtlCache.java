@@ -0,0 +1,86 @@
+package edu.ucsal.fiadopay.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache em memória com expiração por entrada e tamanho máximo.
+ * Ao passar do limite, remove expirados e depois os mais antigos até 90% da capacidade.
+ */
+public final class TtlCache<K, V> {
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxSize;
+
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TtlCache(long ttlMillis, int maxSize) {
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.maxSize = maxSize;
+    }
+
+    public V get(K key) {
+        Entry<V> e = entries.get(key);
+        if (e == null) {
+            misses.increment();
+            return null;
+        }
+        if (e.expired(System.nanoTime())) {
+            entries.remove(key, e);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return e.value();
+    }
+
+    public void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+        if (entries.size() > maxSize)
+            evict();
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public CacheStats stats() {
+        return CacheStats.of(entries.size(), hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    private void evict() {
+        if (!evicting.compareAndSet(false, true))
+            return;
+        try {
+            long now = System.nanoTime();
+            int before = entries.size();
+            entries.entrySet().removeIf(e -> e.getValue().expired(now));
+
+            int target = (int) (maxSize * 0.9);
+            if (entries.size() > target) {
+                List<Map.Entry<K, Entry<V>>> oldest = new ArrayList<>(entries.entrySet());
+                oldest.sort((a, b) -> Long.compare(a.getValue().expiresAt(), b.getValue().expiresAt()));
+                for (int i = 0; i < oldest.size() && entries.size() > target; i++) {
+                    entries.remove(oldest.get(i).getKey(), oldest.get(i).getValue());
+                }
+            }
+            evictions.add(Math.max(0, before - entries.size()));
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+        boolean expired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package edu.ucsal.fiadopay.service;
+
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Acumula eventos por (merchant, webhookUrl) e libera o lote quando a janela expira
+ * ou quando atinge o tamanho máximo, o que vier primeiro. Cada evento recebe o
+ * future do seu lote, completado quando o lote é gravado pelo flusher. Merchants que
+ * compartilham a mesma URL têm lotes separados, cada um atribuído ao próprio merchant.
+ */
+class WebhookBatcher {
+
+    private final TaskScheduler taskScheduler;
+    private final long windowMs;
+    private final int maxSize;
+    private final Flusher flusher;
+
+    private final ConcurrentHashMap<BatchKey, PendingBatch> batches = new ConcurrentHashMap<>();
+
+    WebhookBatcher(TaskScheduler taskScheduler, long windowMs, int maxSize,
+                   Flusher flusher) {
+        this.taskScheduler = taskScheduler;
+        this.windowMs = windowMs;
+        this.maxSize = maxSize;
+        this.flusher = flusher;
+    }
+
+    CompletableFuture<Void> add(String targetUrl, Long merchantId, Map<String, Object> event) {
+        while (true) {
+            PendingBatch batch = batches.computeIfAbsent(new BatchKey(merchantId, targetUrl), this::open);
+            List<Map<String, Object>> full;
+            synchronized (batch) {
+                // Lote já fechado por outra thread: abre um novo
+                if (batch.closed)
+                    continue;
+                batch.events.add(event);
+                if (batch.events.size() < maxSize)
+                    return batch.stored;
+                full = close(batch);
+            }
+            flush(batch, full);
+            return batch.stored;
+        }
+    }
+
+    private PendingBatch open(BatchKey key) {
+        PendingBatch batch = new PendingBatch(key);
+        batch.timer = taskScheduler.schedule(() -> expire(batch), Instant.now().plusMillis(windowMs));
+        return batch;
+    }
+
+    private void expire(PendingBatch batch) {
+        List<Map<String, Object>> events;
+        synchronized (batch) {
+            if (batch.closed)
+                return;
+            events = close(batch);
+        }
+        flush(batch, events);
+    }
+
+    private void flush(PendingBatch batch, List<Map<String, Object>> events) {
+        try {
+            flusher.flush(batch.key.targetUrl(), batch.key.merchantId(), events);
+            batch.stored.complete(null);
+        } catch (RuntimeException e) {
+            batch.stored.completeExceptionally(e);
+        }
+    }
+
+    private List<Map<String, Object>> close(PendingBatch batch) {
+        batch.closed = true;
+        batches.remove(batch.key, batch);
+        if (batch.timer != null)
+            batch.timer.cancel(false);
+        return batch.events;
+    }
+
+    interface Flusher {
+        void flush(String targetUrl, Long merchantId, List<Map<String, Object>> events);
+    }
+
+    private record BatchKey(Long merchantId, String targetUrl) {}
+
+    private static final class PendingBatch {
+        final BatchKey key;
+        final List<Map<String, Object>> events = new ArrayList<>();
+        final CompletableFuture<Void> stored = new CompletableFuture<>();
+        ScheduledFuture<?> timer;
+        boolean closed;
+
+        PendingBatch(BatchKey key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package edu.ucsal.fiadopay.service;
+
+import java.time.Instant;
+
+public record WebhookBreakerStats(
+        String targetUrl,
+        String state,             // CLOSED | OPEN | HALF_OPEN
+        int consecutiveFailures,
+        int parked,
+        long timesOpened,
+        Instant nextProbeAt       // null fora do estado OPEN
+) {}
@@ -0,0 +1,233 @@
+package edu.ucsal.fiadopay.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Um circuit breaker por webhookUrl. Após {@code failureThreshold} falhas seguidas o
+ * endpoint abre: novas tentativas ficam estacionadas em memória, sem chamada HTTP e sem
+ * contar tentativa. Vencido o tempo de abertura, uma única entrega vai como sonda
+ * (HALF_OPEN); se passar, o circuito fecha e as estacionadas são liberadas aos poucos,
+ * se falhar, reabre com o dobro do tempo (até {@code maxOpenMs}). A fila de estacionadas
+ * tem teto ({@code maxParked}); acima dele a entrega é adiada no banco ({@link Deferrer}) e
+ * nada dela fica em memória. Breakers CLOSED sem uso há {@code idleMs} são descartados, para
+ * URLs que saíram de uso (ex.: merchant trocou o webhook) não ficarem para sempre no mapa.
+ */
+@Slf4j
+class WebhookCircuitBreakers {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    // Entregas são retomadas pelo mesmo caminho do scheduler: (deliveryId, merchantId)
+    interface Resumer {
+        void resume(Long deliveryId, Long merchantId);
+    }
+
+    // Fila cheia: grava a próxima tentativa no banco, de onde um poll a retoma
+    interface Deferrer {
+        void defer(Long deliveryId, Instant retryAt);
+    }
+
+    private static final long DRAIN_STEP_MS = 100;
+
+    private final TaskScheduler taskScheduler;
+    private final Resumer resumer;
+    private final Deferrer deferrer;
+    private final int failureThreshold;
+    private final long openMs;
+    private final long maxOpenMs;
+    private final int drainPerStep;
+    private final int maxParked;
+    private final long idleNanos;
+
+    private final ConcurrentHashMap<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+    WebhookCircuitBreakers(TaskScheduler taskScheduler, Resumer resumer, Deferrer deferrer, int failureThreshold,
+                           long openMs, long maxOpenMs, int drainPerSecond, int maxParked, long idleMs) {
+        this.taskScheduler = taskScheduler;
+        this.resumer = resumer;
+        this.deferrer = deferrer;
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+        this.maxOpenMs = maxOpenMs;
+        this.drainPerStep = Math.max(1, (int) (drainPerSecond * DRAIN_STEP_MS / 1000));
+        this.maxParked = maxParked;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMs);
+    }
+
+    /**
+     * Libera a chamada (circuito fechado ou sonda do HALF_OPEN) ou estaciona a entrega
+     */
+    boolean tryAcquire(String targetUrl, Long deliveryId, Long merchantId) {
+        while (true) {
+            Breaker b = breakers.computeIfAbsent(targetUrl, Breaker::new);
+            Instant retryAt;
+            synchronized (b) {
+                // Descartado por ociosidade entre o get e o lock: pega o novo
+                if (b.evicted)
+                    continue;
+                b.lastUsedNanos = System.nanoTime();
+                // Fechado: passa direto, mesmo com estacionadas ainda sendo drenadas
+                if (b.state == State.CLOSED)
+                    return true;
+                if (b.state == State.HALF_OPEN && !b.probeInFlight) {
+                    b.probeInFlight = true;
+                    log.info("🔎 Probing webhook endpoint {}", targetUrl);
+                    return true;
+                }
+                if (b.parked.size() < maxParked) {
+                    b.parked.addLast(new Parked(deliveryId, merchantId));
+                    return false;
+                }
+                retryAt = b.state == State.OPEN ? b.nextProbeAt : Instant.now().plusMillis(openMs);
+            }
+            // Fila de estacionadas cheia: a entrega continua pendente no banco e volta mais tarde
+            deferrer.defer(deliveryId, retryAt);
+            return false;
+        }
+    }
+
+    void onResult(String targetUrl, boolean success) {
+        Breaker b = breakers.get(targetUrl);
+        if (b == null)
+            return;
+        boolean drain = false;
+        synchronized (b) {
+            if (b.evicted)
+                return;
+            b.lastUsedNanos = System.nanoTime();
+            switch (b.state) {
+                case CLOSED -> {
+                    if (success) {
+                        b.consecutiveFailures = 0;
+                    } else if (++b.consecutiveFailures >= failureThreshold) {
+                        open(b, openMs);
+                    }
+                }
+                case HALF_OPEN -> {
+                    b.probeInFlight = false;
+                    if (success) {
+                        b.state = State.CLOSED;
+                        b.consecutiveFailures = 0;
+                        b.nextProbeAt = null;
+                        drain = true;
+                        log.info("✅ Webhook endpoint {} recovered, draining {} parked deliveries",
+                                targetUrl, b.parked.size());
+                    } else {
+                        open(b, Math.min(maxOpenMs, b.openDurationMs * 2));
+                    }
+                }
+                case OPEN -> {
+                    // Respostas de chamadas feitas antes da abertura não mudam o estado
+                }
+            }
+        }
+        if (drain)
+            drainStep(b);
+    }
+
+    /**
+     * Descarta breakers CLOSED, sem falhas nem estacionadas, parados há mais de {@code idleMs}.
+     * Um breaker assim é igual a um novo: recriá-lo depois não muda nenhuma decisão.
+     */
+    int evictIdle() {
+        long now = System.nanoTime();
+        int before = breakers.size();
+        breakers.values().removeIf(b -> {
+            synchronized (b) {
+                boolean idle = b.state == State.CLOSED && b.consecutiveFailures == 0 && b.parked.isEmpty()
+                        && now - b.lastUsedNanos >= idleNanos;
+                if (idle)
+                    b.evicted = true;
+                return idle;
+            }
+        });
+        return before - breakers.size();
+    }
+
+    List<WebhookBreakerStats> stats() {
+        return breakers.values().stream()
+                .map(b -> {
+                    synchronized (b) {
+                        return new WebhookBreakerStats(b.targetUrl, b.state.name(), b.consecutiveFailures,
+                                b.parked.size(), b.timesOpened, b.nextProbeAt);
+                    }
+                })
+                .sorted(Comparator.comparing(WebhookBreakerStats::targetUrl))
+                .toList();
+    }
+
+    // Chamado com o lock do breaker
+    private void open(Breaker b, long durationMs) {
+        b.state = State.OPEN;
+        b.openDurationMs = durationMs;
+        b.nextProbeAt = Instant.now().plusMillis(durationMs);
+        b.timesOpened++;
+        log.warn("🔌 Webhook endpoint {} circuit opened for {}ms after {} failures",
+                b.targetUrl, durationMs, b.consecutiveFailures);
+        taskScheduler.schedule(() -> halfOpen(b), b.nextProbeAt);
+    }
+
+    private void halfOpen(Breaker b) {
+        Parked probe;
+        synchronized (b) {
+            if (b.state == State.CLOSED)
+                return;
+            if (b.state == State.OPEN) {
+                if (Instant.now().isBefore(b.nextProbeAt))
+                    return;   // timer antigo de uma abertura anterior
+                b.state = State.HALF_OPEN;
+            }
+            if (b.probeInFlight)
+                return;
+            probe = b.parked.pollFirst();
+            // Sem sonda disponível (ex.: entrega já concluída), tenta de novo mais tarde
+            taskScheduler.schedule(() -> halfOpen(b), Instant.now().plusMillis(b.openDurationMs));
+        }
+        if (probe != null)
+            resumer.resume(probe.deliveryId(), probe.merchantId());
+    }
+
+    // Libera as estacionadas em ritmo controlado para não derrubar o endpoint que acabou de voltar
+    private void drainStep(Breaker b) {
+        List<Parked> step;
+        synchronized (b) {
+            if (b.state != State.CLOSED || b.parked.isEmpty())
+                return;
+            int n = Math.min(drainPerStep, b.parked.size());
+            step = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                step.add(b.parked.pollFirst());
+            }
+        }
+        step.forEach(p -> resumer.resume(p.deliveryId(), p.merchantId()));
+        taskScheduler.schedule(() -> drainStep(b), Instant.now().plusMillis(DRAIN_STEP_MS));
+    }
+
+    private record Parked(Long deliveryId, Long merchantId) {}
+
+    private static final class Breaker {
+        final String targetUrl;
+        final ArrayDeque<Parked> parked = new ArrayDeque<>();
+        State state = State.CLOSED;
+        int consecutiveFailures;
+        long openDurationMs;
+        long timesOpened;
+        Instant nextProbeAt;
+        boolean probeInFlight;
+        long lastUsedNanos = System.nanoTime();
+        boolean evicted;
+
+        Breaker(String targetUrl) {
+            this.targetUrl = targetUrl;
+        }
+    }
+}
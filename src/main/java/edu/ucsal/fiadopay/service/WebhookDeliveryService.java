@@ -0,0 +1,413 @@
+package edu.ucsal.fiadopay.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsal.fiadopay.config.FairQueueExecutor;
+import edu.ucsal.fiadopay.controller.WebhookEventData;
+import edu.ucsal.fiadopay.domain.WebhookDelivery;
+import edu.ucsal.fiadopay.repo.WebhookDeliveryRepository;
+import edu.ucsal.fiadopay.service.StageTimer.Stage;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Entrega de webhooks aos merchants com retentativas agendadas.
+ * Cada retentativa é marcada em {@code nextAttemptAt} e disparada pelo scheduler
+ * na hora certa, sem segurar threads do webhookExecutor entre uma tentativa e outra.
+ * O envio é assíncrono pelo {@code webhookHttpClient} compartilhado, com limite de
+ * requisições simultâneas por host do merchant. Merchants com {@code webhookBatching}
+ * recebem os eventos agrupados em um único POST assinado. As tentativas passam por uma
+ * fila justa por merchant, para que um merchant com rajada não atrase os demais, e por
+ * um circuit breaker por webhookUrl, que estaciona as entregas de endpoints fora do ar.
+ */
+@Slf4j
+@Service
+public class WebhookDeliveryService {
+
+    static final int MAX_ATTEMPTS = 5;
+    private static final int DEFERRED_PAGE = 500;
+
+    private final WebhookDeliveryRepository deliveries;
+    private final MerchantCache merchantCache;
+    private final ObjectMapper objectMapper;
+    private final WebhookSigner signer;
+    private final FairQueueExecutor webhookExecutor;
+    private final TaskScheduler taskScheduler;
+    private final HttpClient httpClient;
+    private final PaymentMetrics metrics;
+    private final StageTimer stageTimer;
+    private final IdGenerator idGenerator;
+
+    private final ConcurrentHashMap<String, HostGate> hostGates = new ConcurrentHashMap<>();
+    private WebhookBatcher batcher;
+    private WebhookCircuitBreakers breakers;
+
+    @Value("${fiadopay.webhook.batch.window-ms}")
+    long batchWindowMs;
+    @Value("${fiadopay.webhook.batch.max-size}")
+    int batchMaxSize;
+    @Value("${fiadopay.webhook.request-timeout-ms}")
+    long requestTimeoutMs;
+    @Value("${fiadopay.webhook.max-in-flight-per-host}")
+    int maxInFlightPerHost;
+    @Value("${fiadopay.webhook.breaker.failure-threshold}")
+    int breakerFailureThreshold;
+    @Value("${fiadopay.webhook.breaker.open-ms}")
+    long breakerOpenMs;
+    @Value("${fiadopay.webhook.breaker.max-open-ms}")
+    long breakerMaxOpenMs;
+    @Value("${fiadopay.webhook.breaker.drain-per-second}")
+    int breakerDrainPerSecond;
+    @Value("${fiadopay.webhook.breaker.max-parked}")
+    int breakerMaxParked;
+    @Value("${fiadopay.webhook.breaker.idle-ms}")
+    long breakerIdleMs;
+
+    public WebhookDeliveryService(WebhookDeliveryRepository deliveries,
+                                  MerchantCache merchantCache,
+                                  ObjectMapper objectMapper,
+                                  WebhookSigner signer,
+                                  @Qualifier("fairWebhookExecutor") FairQueueExecutor webhookExecutor,
+                                  @Qualifier("taskScheduler") TaskScheduler taskScheduler,
+                                  @Qualifier("webhookHttpClient") HttpClient httpClient,
+                                  PaymentMetrics metrics,
+                                  StageTimer stageTimer,
+                                  IdGenerator idGenerator) {
+        this.deliveries = deliveries;
+        this.merchantCache = merchantCache;
+        this.objectMapper = objectMapper;
+        this.signer = signer;
+        this.webhookExecutor = webhookExecutor;
+        this.taskScheduler = taskScheduler;
+        this.httpClient = httpClient;
+        this.metrics = metrics;
+        this.stageTimer = stageTimer;
+        this.idGenerator = idGenerator;
+    }
+
+    @PostConstruct
+    public void init() {
+        batcher = new WebhookBatcher(taskScheduler, batchWindowMs, batchMaxSize, this::flushBatch);
+        breakers = new WebhookCircuitBreakers(taskScheduler, this::submit, deliveries::defer, breakerFailureThreshold,
+                breakerOpenMs, breakerMaxOpenMs, breakerDrainPerSecond, breakerMaxParked, breakerIdleMs);
+    }
+
+    public List<WebhookBreakerStats> breakerStats() {
+        return breakers.stats();
+    }
+
+    /**
+     * Publica um evento de pagamento no webhook do merchant, direto ou via lote.
+     * O future completa quando a {@link WebhookDelivery} correspondente está gravada
+     * (no lote, só quando ele é liberado); só então o evento pode sair da outbox.
+     */
+    public CompletableFuture<Void> publish(WebhookEventData eventData) {
+        var merchant = merchantCache.findById(eventData.merchantId()).orElse(null);
+        if (merchant == null || merchant.getWebhookUrl() == null || merchant.getWebhookUrl().isBlank())
+            return CompletableFuture.completedFuture(null);
+
+        var data = Map.of(
+                "paymentId", eventData.paymentId(),
+                "status", eventData.paymentStatus().name(),
+                "occurredAt", eventData.occurredAt().toString());
+        Map<String, Object> event = Map.of(
+                "id", eventData.eventId(),
+                "type", "payment.updated",
+                "data", data);
+
+        if (merchant.isWebhookBatching())
+            return batcher.add(merchant.getWebhookUrl(), merchant.getId(), event);
+
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            // fallback mínimo: não envia webhook se falhar a serialização (tentar de novo não adianta)
+            log.error("Failed to serialize webhook event {}", eventData.eventId(), e);
+            return CompletableFuture.completedFuture(null);
+        }
+        enqueue(deliveries.save(newDelivery(eventData.eventId(), "payment.updated", eventData.paymentId(),
+                merchant.getId(), merchant.getWebhookUrl(), payload, 1)));
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // Falhas sobem para o batcher, que falha o future do lote e mantém os eventos na outbox
+    private void flushBatch(String targetUrl, Long merchantId, List<Map<String, Object>> events) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(events);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize webhook batch for " + targetUrl, e);
+        }
+        var delivery = deliveries.save(newDelivery(idGenerator.next("bat_"),
+                "payment.batch", null, merchantId, targetUrl, payload, events.size()));
+        log.debug("📦 Flushed webhook batch {} with {} events", delivery.getId(), events.size());
+        enqueue(delivery);
+    }
+
+    private WebhookDelivery newDelivery(String eventId, String eventType, String paymentId, Long merchantId,
+                                        String targetUrl, String payload, int eventCount) {
+        return WebhookDelivery.builder()
+                .eventId(eventId)
+                .eventType(eventType)
+                .paymentId(paymentId)
+                .merchantId(merchantId)
+                .eventCount(eventCount)
+                .targetUrl(targetUrl)
+                .signature(signer.sign(payload))
+                .payload(payload)
+                .attempts(0)
+                .delivered(false)
+                .lastAttemptAt(null)
+                .nextAttemptAt(Instant.now())
+                .build();
+    }
+
+    /**
+     * Agenda a primeira tentativa de uma entrega recém-criada.
+     * Dentro de uma transação, só agenda após o commit para a linha estar visível.
+     */
+    public void enqueue(WebhookDelivery delivery) {
+        Long id = delivery.getId();
+        Long merchantId = delivery.getMerchantId();
+        AfterCommit.run(() -> schedule(id, merchantId, Instant.now()));
+    }
+
+    /**
+     * Retoma entregas pendentes após um restart
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverPending() {
+        // Em ordem de vencimento: as atrasadas saem primeiro
+        List<WebhookDelivery> pending = deliveries.findByDeliveredFalseAndNextAttemptAtNotNullOrderByNextAttemptAtAsc();
+        Instant now = Instant.now();
+        for (WebhookDelivery d : pending) {
+            // Adiadas voltam pelo poll de adiadas
+            if (d.isDeferred())
+                continue;
+            Instant due = d.getNextAttemptAt();
+            schedule(d.getId(), d.getMerchantId(), due.isBefore(now) ? now : due);
+        }
+        if (!pending.isEmpty()) {
+            log.info("🔁 Recovered {} pending webhook deliveries", pending.size());
+        }
+    }
+
+    /**
+     * Retoma as entregas adiadas no banco que já venceram. O scheduler só dispara; a leitura
+     * roda no webhookExecutor.
+     */
+    @Scheduled(fixedDelayString = "${fiadopay.webhook.breaker.deferred-poll-ms}")
+    public void pollDeferred() {
+        webhookExecutor.execute(null, () -> {
+            try {
+                resumeDeferred();
+            } catch (Exception e) {
+                log.error("❌ Failed to resume deferred webhook deliveries", e);
+            }
+        });
+    }
+
+    private void resumeDeferred() {
+        List<WebhookDelivery> due;
+        do {
+            due = deliveries.findByDeferredTrueAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(
+                    Instant.now(), Limit.of(DEFERRED_PAGE));
+            if (due.isEmpty())
+                return;
+            deliveries.resumeDeferred(due.stream().map(WebhookDelivery::getId).toList());
+            due.forEach(d -> submit(d.getId(), d.getMerchantId()));
+            log.debug("🔁 Resumed {} deferred webhook deliveries", due.size());
+        } while (due.size() == DEFERRED_PAGE);
+    }
+
+    // Breakers de URLs que saíram de uso (ex.: merchant trocou o webhook)
+    @Scheduled(fixedDelayString = "${fiadopay.webhook.breaker.idle-ms}")
+    public void evictIdleBreakers() {
+        int evicted = breakers.evictIdle();
+        if (evicted > 0)
+            log.debug("Evicted {} idle webhook breakers", evicted);
+    }
+
+    private void schedule(Long deliveryId, Long merchantId, Instant when) {
+        taskScheduler.schedule(() -> submit(deliveryId, merchantId), when);
+    }
+
+    private void submit(Long deliveryId, Long merchantId) {
+        dispatch(merchantId, deliveryId, () -> {
+            log.debug("📡 Delivering webhook {} in thread: {}",
+                    deliveryId, Thread.currentThread().getName());
+            tryDeliver(deliveryId);
+        });
+    }
+
+    private void dispatch(Long merchantId, Long deliveryId, Runnable task) {
+        // A fila justa nunca rejeita: segura a tarefa até a vez do merchant
+        webhookExecutor.execute(merchantId, () -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Webhook delivery failed for {}", deliveryId, e);
+            }
+        });
+    }
+
+    private void tryDeliver(Long deliveryId) {
+        long start = System.nanoTime();
+        var d = deliveries.findById(deliveryId).orElse(null);
+        long loaded = System.nanoTime();
+        if (d == null || d.isDelivered())
+            return;
+
+        URI target;
+        HttpRequest req;
+        try {
+            target = URI.create(d.getTargetUrl());
+            req = HttpRequest.newBuilder(target)
+                    .timeout(Duration.ofMillis(requestTimeoutMs))
+                    .header("Content-Type", "application/json")
+                    .header("X-Event-Type", d.getEventType())
+                    .header("X-Signature", d.getSignature())
+                    .POST(HttpRequest.BodyPublishers.ofString(d.getPayload()))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            log.debug("Webhook {} has an invalid target: {}", deliveryId, e.toString());
+            recordAttempt(d, false);
+            return;
+        }
+
+        // Limita requisições simultâneas por host; sem vaga, espera na fila do host sem contar tentativa
+        HostGate gate = hostGates.computeIfAbsent(hostKey(target), h -> new HostGate(maxInFlightPerHost));
+        gate.acquire(d.getMerchantId(), deliveryId, () -> send(d, req, gate, start, loaded));
+    }
+
+    // Roda com a vaga do host já garantida; toda saída daqui devolve a vaga
+    private void send(WebhookDelivery d, HttpRequest req, HostGate gate, long start, long loaded) {
+        Long deliveryId = d.getId();
+        // Endpoint com circuito aberto: a entrega fica estacionada sem chamada nem tentativa
+        if (!breakers.tryAcquire(d.getTargetUrl(), deliveryId, d.getMerchantId())) {
+            gate.release();
+            return;
+        }
+
+        long sentAt = System.nanoTime();
+        try {
+            httpClient.sendAsync(req, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((res, err) -> {
+                        long httpNanos = System.nanoTime() - sentAt;
+                        gate.release();
+                        if (err != null) {
+                            log.debug("Webhook {} attempt failed: {}", deliveryId, err.toString());
+                        } else {
+                            metrics.recordWebhookDelivery(httpNanos);
+                        }
+                        boolean ok = err == null && res.statusCode() >= 200 && res.statusCode() < 300;
+                        breakers.onResult(d.getTargetUrl(), ok);
+                        // A gravação da tentativa vai para o webhookExecutor, fora das threads do HttpClient
+                        dispatch(d.getMerchantId(), deliveryId, () -> {
+                            // A resposta chega em outra thread: o trace é montado aqui com as etapas anteriores
+                            var trace = stageTimer.begin("webhookDelivery", start);
+                            try {
+                                trace.add(Stage.WEBHOOK_LOAD, loaded - start);
+                                trace.add(Stage.WEBHOOK_PREPARE, sentAt - loaded);
+                                trace.add(Stage.WEBHOOK_HTTP, httpNanos);
+                                long recordStart = System.nanoTime();
+                                recordAttempt(d, ok);
+                                trace.add(Stage.WEBHOOK_RECORD, System.nanoTime() - recordStart);
+                            } finally {
+                                trace.end(deliveryId);
+                            }
+                        });
+                    });
+        } catch (RuntimeException e) {
+            gate.release();
+            breakers.onResult(d.getTargetUrl(), false);
+            throw e;
+        }
+    }
+
+    private static String hostKey(URI target) {
+        return target.getHost() + ":" + target.getPort();
+    }
+
+    private void recordAttempt(WebhookDelivery d, boolean delivered) {
+        Instant now = Instant.now();
+        d.setAttempts(d.getAttempts() + 1);
+        d.setLastAttemptAt(now);
+        d.setDelivered(delivered);
+
+        if (!delivered && d.getAttempts() < MAX_ATTEMPTS) {
+            // Backoff linear, igual ao comportamento anterior (1s, 2s, 3s, ...)
+            Instant next = now.plusMillis(1000L * d.getAttempts());
+            d.setNextAttemptAt(next);
+            deliveries.save(d);
+            schedule(d.getId(), d.getMerchantId(), next);
+            return;
+        }
+
+        d.setNextAttemptAt(null);
+        deliveries.save(d);
+        if (!delivered) {
+            log.warn("❌ Webhook {} gave up after {} attempts", d.getId(), d.getAttempts());
+        }
+    }
+
+    /**
+     * Vagas de requisições simultâneas para um host. Sem vaga, a continuação da entrega
+     * (já carregada) espera numa fila e é liberada pelo callback de quem terminar.
+     */
+    private final class HostGate {
+        private final int maxInFlight;
+        private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+        private int inFlight;
+
+        HostGate(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        void acquire(Long merchantId, Long deliveryId, Runnable task) {
+            synchronized (this) {
+                if (inFlight >= maxInFlight) {
+                    waiters.addLast(new Waiter(merchantId, deliveryId, task));
+                    return;
+                }
+                inFlight++;
+            }
+            task.run();
+        }
+
+        void release() {
+            Waiter next;
+            synchronized (this) {
+                next = waiters.pollFirst();
+                // Com alguém esperando, a vaga passa direto para ele
+                if (next == null)
+                    inFlight--;
+            }
+            if (next != null)
+                dispatch(next.merchantId(), next.deliveryId(), next.task());
+        }
+    }
+
+    private record Waiter(Long merchantId, Long deliveryId, Runnable task) {}
+}
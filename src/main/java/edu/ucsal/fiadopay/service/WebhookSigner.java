@@ -0,0 +1,78 @@
+package edu.ucsal.fiadopay.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Assinatura HMAC-SHA256 dos webhooks.
+ * As chaves são montadas uma vez; instâncias de Mac já inicializadas ficam num pool
+ * sem locks (funciona igual com virtual threads, ao contrário de ThreadLocal).
+ * Com segredos secundários configurados, o payload é assinado com todos e as
+ * assinaturas vão separadas por vírgula, permitindo rotacionar sem downtime.
+ */
+@Component
+public class WebhookSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final List<SecretKeySpec> keys;
+    private final ConcurrentLinkedQueue<Mac[]> pool = new ConcurrentLinkedQueue<>();
+
+    public WebhookSigner(@Value("${fiadopay.webhook-secret}") String secret,
+                         @Value("${fiadopay.webhook-secondary-secrets:}") List<String> secondarySecrets) {
+        List<SecretKeySpec> active = new ArrayList<>();
+        active.add(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+        for (String s : secondarySecrets) {
+            if (!s.isBlank())
+                active.add(new SecretKeySpec(s.trim().getBytes(StandardCharsets.UTF_8), ALGORITHM));
+        }
+        this.keys = List.copyOf(active);
+        // Falha no startup se o provedor HMAC não estiver disponível
+        pool.offer(newMacs());
+    }
+
+    public String sign(String payload) {
+        byte[] data = payload.getBytes(StandardCharsets.UTF_8);
+        Mac[] macs = pool.poll();
+        if (macs == null)
+            macs = newMacs();
+        try {
+            Base64.Encoder encoder = Base64.getEncoder();
+            if (macs.length == 1)
+                return encoder.encodeToString(macs[0].doFinal(data));
+
+            StringBuilder signatures = new StringBuilder(45 * macs.length);
+            for (int i = 0; i < macs.length; i++) {
+                if (i > 0)
+                    signatures.append(',');
+                signatures.append(encoder.encodeToString(macs[i].doFinal(data)));
+            }
+            return signatures.toString();
+        } finally {
+            // doFinal já reinicia o Mac com a mesma chave
+            pool.offer(macs);
+        }
+    }
+
+    private Mac[] newMacs() {
+        Mac[] macs = new Mac[keys.size()];
+        try {
+            for (int i = 0; i < macs.length; i++) {
+                macs[i] = Mac.getInstance(ALGORITHM);
+                macs[i].init(keys.get(i));
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize " + ALGORITHM + " for webhook signing", e);
+        }
+        return macs;
+    }
+}
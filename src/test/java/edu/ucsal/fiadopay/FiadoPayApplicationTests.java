@@ -0,0 +1,13 @@
+package edu.ucsal.fiadopay;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+// Smoke test: falha se algum bean não sobe (ex.: cast inválido num construtor)
+@SpringBootTest
+class FiadoPayApplicationTests {
+
+    @Test
+    void contextLoads() {
+    }
+}
@@ -0,0 +1,113 @@
+package edu.ucsal.fiadopay.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FairQueueExecutorTest {
+
+    // Guarda as tarefas despachadas para o teste rodar uma a uma, na thread do teste
+    private static final class ManualExecutor implements Executor {
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        int rejectNext;
+
+        @Override
+        public void execute(Runnable task) {
+            if (rejectNext > 0) {
+                rejectNext--;
+                throw new RejectedExecutionException("full");
+            }
+            tasks.addLast(task);
+        }
+
+        void runNext() {
+            tasks.pollFirst().run();
+        }
+    }
+
+    private final ManualExecutor delegate = new ManualExecutor();
+    private final List<String> ran = new ArrayList<>();
+
+    private Runnable task(String label) {
+        return () -> ran.add(label);
+    }
+
+    @Test
+    void neverHandsMoreThanMaxConcurrencyToTheDelegate() {
+        var fair = new FairQueueExecutor("test", delegate, 2, 1, id -> 1);
+        for (int i = 0; i < 5; i++) {
+            fair.execute(1L, task("t" + i));
+        }
+        assertThat(delegate.tasks).hasSize(2);
+        assertThat(fair.stats().running()).isEqualTo(2);
+        assertThat(fair.stats().queued()).isEqualTo(3);
+
+        delegate.runNext();
+        assertThat(delegate.tasks).hasSize(2);
+        assertThat(fair.stats().queued()).isEqualTo(2);
+
+        while (!delegate.tasks.isEmpty()) {
+            delegate.runNext();
+        }
+        assertThat(ran).containsExactly("t0", "t1", "t2", "t3", "t4");
+        assertThat(fair.stats().running()).isZero();
+    }
+
+    @Test
+    void merchantWithDoubleWeightGetsTwiceTheTurns() {
+        Map<Long, Integer> weights = Map.of(1L, 2, 2L, 1);
+        var fair = new FairQueueExecutor("test", delegate, 1, 1, weights::get);
+        // Ocupa a única vaga para as filas acumularem
+        fair.execute(1L, task("A0"));
+        for (int i = 1; i <= 6; i++) {
+            fair.execute(1L, task("A" + i));
+        }
+        for (int i = 1; i <= 6; i++) {
+            fair.execute(2L, task("B" + i));
+        }
+        while (!delegate.tasks.isEmpty()) {
+            delegate.runNext();
+        }
+        assertThat(ran.subList(0, 10)).containsExactly("A0", "A1", "A2", "B1", "A3", "A4", "B2", "A5", "A6", "B3");
+        assertThat(ran).hasSize(13);
+    }
+
+    @Test
+    void burstOfOneMerchantDoesNotDelayAnother() {
+        var fair = new FairQueueExecutor("test", delegate, 1, 1, id -> 1);
+        fair.execute(1L, task("A0"));
+        for (int i = 1; i <= 100; i++) {
+            fair.execute(1L, task("A" + i));
+        }
+        fair.execute(2L, task("B1"));
+        delegate.runNext();
+        delegate.runNext();
+        delegate.runNext();
+        assertThat(ran).containsExactly("A0", "A1", "B1");
+    }
+
+    @Test
+    void rejectedTaskIsRequeuedInsteadOfRunningOnTheCaller() {
+        var fair = new FairQueueExecutor("test", delegate, 2, 1, id -> 1);
+        fair.execute(1L, task("t0"));
+        delegate.rejectNext = 1;
+        fair.execute(1L, task("t1"));
+
+        assertThat(ran).isEmpty();
+        assertThat(delegate.tasks).hasSize(1);
+        assertThat(fair.stats().queued()).isEqualTo(1);
+
+        // A próxima conclusão despacha a tarefa devolvida
+        delegate.runNext();
+        assertThat(delegate.tasks).hasSize(1);
+        delegate.runNext();
+        assertThat(ran).containsExactly("t0", "t1");
+    }
+}
@@ -0,0 +1,58 @@
+package edu.ucsal.fiadopay.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdmissionControlTest {
+
+    private final AdmissionControl admission = new AdmissionControl(10, 5, 2);
+
+    @Test
+    void batchLargerThanTheBurstIsRejectedWith413AndNoRetryAfter() {
+        assertThatThrownBy(() -> admission.admit(1L, 6))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> {
+                    assertThat(e.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+                    assertThat(e.getHeaders().containsKey(HttpHeaders.RETRY_AFTER)).isFalse();
+                });
+        // Não ocupa vaga global nem conta como admitido/recusado por taxa
+        var stats = admission.stats();
+        assertThat(stats.inFlight()).isZero();
+        assertThat(stats.admitted()).isZero();
+        assertThat(stats.rejectedRate()).isZero();
+    }
+
+    @Test
+    void batchEqualToTheBurstIsAdmitted() {
+        try (var permit = admission.admit(1L, 5)) {
+            assertThat(admission.stats().inFlight()).isEqualTo(1);
+        }
+        assertThat(admission.stats().inFlight()).isZero();
+    }
+
+    @Test
+    void emptyBucketIsRejectedWith429AndRetryAfter() {
+        admission.admit(1L, 5).close();
+        assertThatThrownBy(() -> admission.admit(1L, 1))
+                .isInstanceOfSatisfying(TooManyRequestsException.class,
+                        e -> assertThat(e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1"));
+        // Outro merchant tem balde próprio
+        admission.admit(2L, 1).close();
+    }
+
+    @Test
+    void globalInFlightLimitRejectsWithoutSpendingTokens() {
+        var first = admission.admit(1L, 1);
+        var second = admission.admit(1L, 1);
+        assertThatThrownBy(() -> admission.admit(1L, 1)).isInstanceOf(TooManyRequestsException.class);
+        first.close();
+        second.close();
+        assertThat(admission.stats().rejectedInFlight()).isEqualTo(1);
+        // Restam 3 fichas
+        admission.admit(1L, 3).close();
+    }
+}
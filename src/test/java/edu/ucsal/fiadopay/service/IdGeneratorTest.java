@@ -0,0 +1,114 @@
+package edu.ucsal.fiadopay.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdGeneratorTest {
+
+    private static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    private static final long T0 = Instant.parse("2026-06-01T12:00:00Z").toEpochMilli();
+    private static final String CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+    private static final long NODE = 7;
+
+    private final AtomicLong clock = new AtomicLong(T0);
+    private final IdGenerator ids = new IdGenerator(NODE, clock::get);
+
+    @Test
+    void idsAreStrictlyIncreasingWithinAndAcrossMillis() {
+        long prev = ids.nextLong();
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 100 == 0)
+                clock.incrementAndGet();
+            long id = ids.nextLong();
+            assertThat(id).isGreaterThan(prev);
+            prev = id;
+        }
+    }
+
+    @Test
+    void layoutIsMillisNodeAndSequence() {
+        long first = ids.nextLong();
+        long second = ids.nextLong();
+
+        assertThat(millis(first)).isEqualTo(T0 - EPOCH);
+        assertThat((first >>> 12) & 1023).isEqualTo(NODE);
+        assertThat(first & 4095).isZero();
+        assertThat(second & 4095).isEqualTo(1);
+    }
+
+    @Test
+    void clockRegressionKeepsOrderOnTheLastMillisecond() {
+        long before = ids.nextLong();
+        clock.set(T0 - 5_000);
+
+        long after = ids.nextLong();
+
+        assertThat(after).isGreaterThan(before);
+        // Não volta no tempo: continua no último milissegundo emitido
+        assertThat(millis(after)).isEqualTo(T0 - EPOCH);
+    }
+
+    @Test
+    void sequenceOverflowCarriesIntoTheNextMillisecond() {
+        long last = 0;
+        for (int i = 0; i < 4096; i++) {
+            last = ids.nextLong();
+        }
+        assertThat(last & 4095).isEqualTo(4095);
+
+        long carried = ids.nextLong();
+
+        assertThat(carried).isGreaterThan(last);
+        assertThat(millis(carried)).isEqualTo(T0 - EPOCH + 1);
+        assertThat(carried & 4095).isZero();
+
+        // Quando o relógio alcança esse milissegundo, a sequência continua de onde parou
+        clock.set(T0 + 1);
+        long next = ids.nextLong();
+        assertThat(millis(next)).isEqualTo(T0 - EPOCH + 1);
+        assertThat(next & 4095).isEqualTo(1);
+    }
+
+    @Test
+    void encodesAsThirteenCrockfordDigitsThatSortInCreationOrder() {
+        String prev = ids.next("pay_");
+        for (int i = 0; i < 5_000; i++) {
+            if (i % 1_000 == 0)
+                clock.addAndGet(1_000_000_000L);   // atravessa vários dígitos
+            String id = ids.next("pay_");
+            assertThat(id).hasSize(4 + 13).startsWith("pay_");
+            assertThat(id.substring(4)).matches("[0-9A-HJKMNP-TV-Z]{13}");
+            assertThat(id).isGreaterThan(prev);
+            prev = id;
+        }
+    }
+
+    @Test
+    void encodingRoundTripsToTheNumericId() {
+        clock.set(T0 + 123);
+        String encoded = ids.next("");
+
+        long decoded = 0;
+        for (char c : encoded.toCharArray()) {
+            decoded = (decoded << 5) | CROCKFORD.indexOf(c);
+        }
+
+        assertThat(millis(decoded)).isEqualTo(T0 + 123 - EPOCH);
+        assertThat((decoded >>> 12) & 1023).isEqualTo(NODE);
+    }
+
+    @Test
+    void rejectsNodeOutOfRange() {
+        assertThatThrownBy(() -> new IdGenerator(1024)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new IdGenerator(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static long millis(long id) {
+        return id >>> 22;
+    }
+}
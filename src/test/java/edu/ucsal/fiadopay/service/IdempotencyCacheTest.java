@@ -0,0 +1,110 @@
+package edu.ucsal.fiadopay.service;
+
+import edu.ucsal.fiadopay.controller.PaymentResponse;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyCacheTest {
+
+    private static final Long MERCHANT = 1L;
+
+    private final IdempotencyCache cache = new IdempotencyCache(60, 1_000);
+
+    @Test
+    void claimAllReservesNewKeysAndReturnsCompletedOnes() {
+        cache.execute(MERCHANT, "k1", () -> payment("pay_1"), this::read);
+
+        var claim = cache.claimAll(MERCHANT, List.of("k1", "k2"));
+
+        assertThat(claim.known()).containsExactly(Map.entry("k1", "pay_1"));
+        // k2 está com o lote: a próxima reserva já a vê concluída
+        claim.release(Map.of("k2", payment("pay_2")));
+        assertThat(cache.claimAll(MERCHANT, List.of("k2")).known()).containsEntry("k2", "pay_2");
+    }
+
+    @Test
+    void keysAreScopedByMerchant() {
+        cache.claimAll(MERCHANT, List.of("k1")).release(Map.of("k1", payment("pay_1")));
+
+        assertThat(cache.claimAll(2L, List.of("k1")).known()).isEmpty();
+    }
+
+    @Test
+    void releaseWithoutResponseLetsTheWaiterCreate() throws Exception {
+        var claim = cache.claimAll(MERCHANT, List.of("k1"));
+        AtomicInteger creations = new AtomicInteger();
+
+        CompletableFuture<PaymentResponse> waiter = CompletableFuture.supplyAsync(() ->
+                cache.execute(MERCHANT, "k1", () -> {
+                    creations.incrementAndGet();
+                    return payment("pay_w");
+                }, this::read));
+        Thread.sleep(50);
+        assertThat(waiter).isNotDone();
+
+        // Item inválido ou transação desfeita: nada criado com a chave
+        claim.release(Map.of());
+
+        assertThat(waiter.get(5, TimeUnit.SECONDS).id()).isEqualTo("pay_w");
+        assertThat(creations).hasValue(1);
+    }
+
+    @Test
+    void releaseWithResponseIsSharedWithTheWaiter() throws Exception {
+        var claim = cache.claimAll(MERCHANT, List.of("k1"));
+
+        CompletableFuture<PaymentResponse> waiter = CompletableFuture.supplyAsync(() ->
+                cache.execute(MERCHANT, "k1", () -> payment("pay_dup"), this::read));
+        Thread.sleep(50);
+        claim.release(Map.of("k1", payment("pay_1")));
+
+        assertThat(waiter.get(5, TimeUnit.SECONDS).id()).isEqualTo("pay_1");
+    }
+
+    @Test
+    void conflictingBatchReleasesItsKeysBeforeWaiting() throws Exception {
+        var first = cache.claimAll(MERCHANT, List.of("k1"));
+
+        // O segundo lote pega k2, encontra k1 ocupada, solta k2 e espera
+        CompletableFuture<IdempotencyCache.BatchClaim> second = CompletableFuture.supplyAsync(() ->
+                cache.claimAll(MERCHANT, List.of("k2", "k1")));
+        Thread.sleep(50);
+        assertThat(second).isNotDone();
+
+        // k2 não ficou presa com o lote que está esperando
+        assertThat(cache.execute(MERCHANT, "k2", () -> payment("pay_2"), this::read).id()).isEqualTo("pay_2");
+
+        first.release(Map.of("k1", payment("pay_1")));
+
+        var claim = second.get(5, TimeUnit.SECONDS);
+        assertThat(claim.known()).containsEntry("k1", "pay_1").containsEntry("k2", "pay_2");
+    }
+
+    @Test
+    void completedKeyIsReadByIdAgain() {
+        cache.execute(MERCHANT, "k1", () -> payment("pay_1"), this::read);
+
+        PaymentResponse again = cache.execute(MERCHANT, "k1", () -> payment("pay_dup"),
+                id -> Optional.of(new PaymentResponse(id, "APPROVED", "PIX", BigDecimal.TEN, 1, 0.0, BigDecimal.TEN)));
+
+        assertThat(again.id()).isEqualTo("pay_1");
+        assertThat(again.status()).isEqualTo("APPROVED");
+    }
+
+    private Optional<PaymentResponse> read(String id) {
+        return Optional.of(payment(id));
+    }
+
+    private static PaymentResponse payment(String id) {
+        return new PaymentResponse(id, "PENDING", "PIX", BigDecimal.TEN, 1, 0.0, BigDecimal.TEN);
+    }
+}
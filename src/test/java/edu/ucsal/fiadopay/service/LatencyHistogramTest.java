@@ -0,0 +1,68 @@
+package edu.ucsal.fiadopay.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.assertj.core.data.Percentage.withPercentage;
+
+class LatencyHistogramTest {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    void emptyHistogramReturnsEmptySnapshot() {
+        assertThat(histogram.snapshot()).isSameAs(LatencyStats.EMPTY);
+    }
+
+    @Test
+    void percentilesStayWithinTheBucketError() {
+        for (int ms = 1; ms <= 1_000; ms++) {
+            histogram.recordMillis(ms);
+        }
+
+        LatencyStats s = histogram.snapshot();
+
+        assertThat(s.count()).isEqualTo(1_000);
+        assertThat(s.meanMs()).isCloseTo(500.5, within(0.001));
+        assertThat(s.p50Ms()).isCloseTo(500, withPercentage(3));
+        assertThat(s.p99Ms()).isCloseTo(990, withPercentage(3));
+        assertThat(s.p999Ms()).isCloseTo(999, withPercentage(3));
+        assertThat(s.maxMs()).isEqualTo(1_000);
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        // Abaixo de 32µs cada valor tem o próprio bucket
+        histogram.recordNanos(17_000);
+
+        LatencyStats s = histogram.snapshot();
+        assertThat(s.p50Ms()).isEqualTo(0.017);
+        assertThat(s.maxMs()).isEqualTo(0.017);
+    }
+
+    @Test
+    void outOfRangeValuesAreClamped() {
+        histogram.recordMillis(-5);
+        histogram.recordMillis(Long.MAX_VALUE / 1_000);
+
+        LatencyStats s = histogram.snapshot();
+        assertThat(s.count()).isEqualTo(2);
+        assertThat(s.p50Ms()).isZero();
+        // Satura em 2^40 µs
+        assertThat(s.maxMs()).isCloseTo(((1L << 40) - 1) / 1000.0, within(0.001));
+    }
+
+    @Test
+    void bucketIndexIsMonotonicWithBoundedRelativeWidth() {
+        int prev = -1;
+        for (long v = 0; v < 1L << 40; v = v < 64 ? v + 1 : v + v / 7) {
+            int index = LatencyHistogram.index(v);
+            assertThat(index).isGreaterThanOrEqualTo(prev);
+            prev = index;
+        }
+        // Entre 512 e 1024 cada bucket cobre 16µs (1/32 da potência de dois)
+        assertThat(LatencyHistogram.index(992)).isEqualTo(LatencyHistogram.index(1_007));
+        assertThat(LatencyHistogram.index(1_008)).isEqualTo(LatencyHistogram.index(992) + 1);
+    }
+}
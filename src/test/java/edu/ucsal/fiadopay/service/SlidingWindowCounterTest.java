@@ -0,0 +1,83 @@
+package edu.ucsal.fiadopay.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlidingWindowCounterTest {
+
+    private static final long T0 = 1_750_000_000_000L;
+
+    // Buckets de 1s, anel de 10s
+    private final SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofSeconds(1), 10);
+
+    @Test
+    void countsOnlyTheBucketsInsideTheWindow() {
+        counter.record(T0);
+        counter.record(T0 + 1_000, 3);
+
+        assertThat(counter.count(T0 + 1_000, Duration.ofSeconds(1))).isEqualTo(3);
+        assertThat(counter.count(T0 + 1_000, Duration.ofSeconds(2))).isEqualTo(4);
+        // Janela que já não alcança nenhum dos dois
+        assertThat(counter.count(T0 + 11_000, Duration.ofSeconds(10))).isZero();
+    }
+
+    @Test
+    void windowIsLimitedToTheRing() {
+        counter.record(T0);
+        counter.record(T0 + 9_000);
+
+        assertThat(counter.span()).isEqualTo(Duration.ofSeconds(10));
+        assertThat(counter.count(T0 + 9_000, Duration.ofHours(1))).isEqualTo(2);
+    }
+
+    @Test
+    void staleBucketIsReusedByANewerPeriod() {
+        counter.record(T0, 5);
+        // Mesma posição do anel, 10 períodos depois
+        counter.record(T0 + 10_000);
+
+        assertThat(counter.count(T0 + 10_000, Duration.ofSeconds(10))).isEqualTo(1);
+    }
+
+    @Test
+    void eventsOlderThanTheBucketPeriodAreDropped() {
+        counter.record(T0 + 10_000);
+        counter.record(T0);
+
+        assertThat(counter.count(T0 + 10_000, Duration.ofSeconds(10))).isEqualTo(1);
+        assertThat(counter.count(T0, Duration.ofSeconds(1))).isZero();
+    }
+
+    @Test
+    void countSaturatesWithoutSpillingIntoThePeriod() {
+        long max = (1L << 24) - 1;
+        counter.record(T0, max + 5);
+        counter.record(T0);
+
+        assertThat(counter.count(T0, Duration.ofSeconds(1))).isEqualTo(max);
+        // O período do bucket continua intacto
+        counter.record(T0 + 1_000);
+        assertThat(counter.count(T0 + 1_000, Duration.ofSeconds(2))).isEqualTo(max + 1);
+    }
+
+    @Test
+    void concurrentRecordsAreNotLost() throws InterruptedException {
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counter.record(T0);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertThat(counter.count(T0, Duration.ofSeconds(1))).isEqualTo(80_000);
+    }
+}
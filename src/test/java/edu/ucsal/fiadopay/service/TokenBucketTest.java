@@ -0,0 +1,67 @@
+package edu.ucsal.fiadopay.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long T0 = 1_000 * SECOND;
+
+    // 10 fichas/s, rajada de 5
+    private final TokenBucket bucket = new TokenBucket(10, 5);
+
+    @Test
+    void admitsTheWholeBurstAtOnceAndThenRejects() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.tryAcquire(1, T0)).isZero();
+        }
+        // Sem ficha: espera um intervalo (100ms)
+        assertThat(bucket.tryAcquire(1, T0)).isEqualTo(SECOND / 10);
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() {
+        for (int i = 0; i < 5; i++) {
+            bucket.tryAcquire(1, T0);
+        }
+        assertThat(bucket.tryAcquire(1, T0 + SECOND / 10)).isZero();
+        assertThat(bucket.tryAcquire(1, T0 + SECOND / 10)).isPositive();
+    }
+
+    @Test
+    void rejectionDoesNotConsumeTokens() {
+        for (int i = 0; i < 5; i++) {
+            bucket.tryAcquire(1, T0);
+        }
+        bucket.tryAcquire(1, T0);
+        bucket.tryAcquire(1, T0);
+        assertThat(bucket.tryAcquire(1, T0 + SECOND / 10)).isZero();
+    }
+
+    @Test
+    void chargesTheFullCostOfABatch() {
+        assertThat(bucket.tryAcquire(3, T0)).isZero();
+        // Restam 2 fichas: pedir 3 falta uma, ou seja, um intervalo
+        assertThat(bucket.tryAcquire(3, T0)).isEqualTo(SECOND / 10);
+        assertThat(bucket.tryAcquire(2, T0)).isZero();
+    }
+
+    @Test
+    void costAboveTheBurstNeverFits() {
+        // Nem com o balde cheio, nem depois de muito tempo
+        assertThat(bucket.tryAcquire(6, T0)).isPositive();
+        assertThat(bucket.tryAcquire(6, T0 + 3600 * SECOND)).isPositive();
+    }
+
+    @Test
+    void idleOnceFullyRefilled() {
+        assertThat(bucket.isIdle(T0)).isTrue();
+        bucket.tryAcquire(2, T0);
+        assertThat(bucket.isIdle(T0)).isFalse();
+        assertThat(bucket.isIdle(T0 + 2 * SECOND / 10)).isTrue();
+    }
+}
@@ -0,0 +1,163 @@
+package edu.ucsal.fiadopay.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WebhookCircuitBreakersTest {
+
+    private static final String URL = "http://merchant.test/webhook";
+    private static final long OPEN_MS = 20;
+
+    // Tarefas agendadas ficam aqui; o teste decide quando rodar
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<Long> resumed = new ArrayList<>();
+    private final List<Long> deferred = new ArrayList<>();
+    private final List<Instant> deferredAt = new ArrayList<>();
+
+    private WebhookCircuitBreakers breakers;
+
+    @BeforeEach
+    void setUp() {
+        TaskScheduler scheduler = mock(TaskScheduler.class);
+        when(scheduler.schedule(any(Runnable.class), any(Instant.class))).thenAnswer(inv -> {
+            scheduled.add(inv.getArgument(0));
+            return null;
+        });
+        // limiar 3, até 2 estacionadas, ociosidade 0 (qualquer CLOSED limpo pode ser descartado)
+        breakers = new WebhookCircuitBreakers(scheduler, (id, merchantId) -> resumed.add(id),
+                (id, retryAt) -> {
+                    deferred.add(id);
+                    deferredAt.add(retryAt);
+                }, 3, OPEN_MS, 1_000, 100, 2, 0);
+    }
+
+    @Test
+    void opensAfterConsecutiveFailuresAndParks() {
+        fail(2);
+        assertThat(state()).isEqualTo("CLOSED");
+        fail(1);
+        assertThat(state()).isEqualTo("OPEN");
+
+        assertThat(breakers.tryAcquire(URL, 10L, 1L)).isFalse();
+        assertThat(stats().parked()).isEqualTo(1);
+        assertThat(resumed).isEmpty();
+        // Só o timer do HALF_OPEN
+        assertThat(scheduled).hasSize(1);
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        fail(2);
+        assertThat(breakers.tryAcquire(URL, 1L, 1L)).isTrue();
+        breakers.onResult(URL, true);
+        fail(2);
+        assertThat(state()).isEqualTo("CLOSED");
+    }
+
+    @Test
+    void halfOpenLetsASingleProbeThrough() throws InterruptedException {
+        openWithParked(10L, 11L);
+        halfOpen();
+
+        assertThat(state()).isEqualTo("HALF_OPEN");
+        // A primeira estacionada volta como sonda...
+        assertThat(resumed).containsExactly(10L);
+        assertThat(breakers.tryAcquire(URL, 10L, 1L)).isTrue();
+        // ...e as demais continuam esperando
+        assertThat(breakers.tryAcquire(URL, 12L, 1L)).isFalse();
+        assertThat(stats().parked()).isEqualTo(2);
+    }
+
+    @Test
+    void successfulProbeClosesAndDrainsParked() throws InterruptedException {
+        openWithParked(10L, 11L);
+        halfOpen();
+        breakers.tryAcquire(URL, 10L, 1L);
+
+        breakers.onResult(URL, true);
+
+        assertThat(state()).isEqualTo("CLOSED");
+        assertThat(resumed).containsExactly(10L, 11L);
+        assertThat(breakers.tryAcquire(URL, 12L, 1L)).isTrue();
+    }
+
+    @Test
+    void failedProbeReopensWithDoubleTheDuration() throws InterruptedException {
+        openWithParked(10L);
+        halfOpen();
+        breakers.tryAcquire(URL, 10L, 1L);
+
+        Instant before = Instant.now();
+        breakers.onResult(URL, false);
+
+        WebhookBreakerStats s = stats();
+        assertThat(s.state()).isEqualTo("OPEN");
+        assertThat(s.timesOpened()).isEqualTo(2);
+        assertThat(s.nextProbeAt()).isAfterOrEqualTo(before.plusMillis(2 * OPEN_MS));
+        assertThat(breakers.tryAcquire(URL, 11L, 1L)).isFalse();
+    }
+
+    @Test
+    void fullParkedQueueDefersToTheDatabase() {
+        openWithParked(10L, 11L);
+
+        assertThat(breakers.tryAcquire(URL, 12L, 1L)).isFalse();
+
+        assertThat(deferred).containsExactly(12L);
+        // Volta quando a sonda já puder ter passado
+        assertThat(deferredAt).containsExactly(stats().nextProbeAt());
+        assertThat(stats().parked()).isEqualTo(2);
+    }
+
+    @Test
+    void evictsOnlyIdleClosedBreakers() {
+        String healthy = "http://other.test/webhook";
+        breakers.tryAcquire(healthy, 1L, 2L);
+        breakers.onResult(healthy, true);
+        fail(3);
+
+        assertThat(breakers.evictIdle()).isEqualTo(1);
+
+        assertThat(breakers.stats()).extracting(WebhookBreakerStats::targetUrl).containsExactly(URL);
+        // Um novo breaker é criado no próximo uso
+        assertThat(breakers.tryAcquire(healthy, 2L, 2L)).isTrue();
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            assertThat(breakers.tryAcquire(URL, (long) i, 1L)).isTrue();
+            breakers.onResult(URL, false);
+        }
+    }
+
+    private void openWithParked(Long... deliveryIds) {
+        fail(3);
+        for (Long id : deliveryIds) {
+            breakers.tryAcquire(URL, id, 1L);
+        }
+    }
+
+    // Espera o tempo de abertura e roda o timer agendado na abertura
+    private void halfOpen() throws InterruptedException {
+        Thread.sleep(OPEN_MS + 10);
+        scheduled.remove(0).run();
+    }
+
+    private WebhookBreakerStats stats() {
+        return breakers.stats().stream().filter(s -> s.targetUrl().equals(URL)).findFirst().orElseThrow();
+    }
+
+    private String state() {
+        return stats().state();
+    }
+}